@@ -0,0 +1,44 @@
+package benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks of the project and writes their results as a JSON file, which can be
+ * compared between versions (for example with the JMH visualizer) to catch performance regressions.<br/>
+ * Usage: BenchmarkRunner [result file] [benchmark regular expression]<br/>
+ * The default result file is benchmarks/results/jmh-result.json and by default all the benchmarks run.
+ * The full renders of the final images take a long time - they can be left out with a regular
+ * expression such as "^(?!.*(finalImage|teddyBear)).*"
+ * @author Zili
+ */
+public class BenchmarkRunner {
+    /** The default file of the results */
+    private static final String DEFAULT_RESULT = "benchmarks/results/jmh-result.json";
+
+    /**
+     * Runs the benchmarks
+     * @param args optional result file and optional regular expression of the benchmarks to run
+     * @throws RunnerException if running the benchmarks failed
+     */
+    public static void main(String[] args) throws RunnerException {
+        String result = args.length > 0 ? args[0] : DEFAULT_RESULT;
+        String include = args.length > 1 ? args[1] : ".*";
+
+        File parent = new File(result).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs())
+            throw new IllegalStateException("Cannot create the results folder " + parent);
+
+        Options options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
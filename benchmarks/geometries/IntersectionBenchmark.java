@@ -0,0 +1,79 @@
+package geometries;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static geometries.Intersectable.GeoPoint;
+
+/**
+ * Micro benchmarks of the ray intersection calculations of each basic geometry.
+ * Each geometry is checked both with a ray that hits it and with a ray that misses it,
+ * since a miss is the common case in a scene with many bodies
+ * @author Ayala
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+    private Sphere sphere;
+    private Plane plane;
+    private Triangle triangle;
+    private Polygon polygon;
+    private Tube tube;
+    /** A ray from the origin hitting all the geometries */
+    private Ray hitRay;
+    /** A ray from the origin missing all the geometries */
+    private Ray missRay;
+
+    /**
+     * Initializes the geometries and the rays of the benchmarks
+     */
+    @Setup
+    public void setup() {
+        sphere = new Sphere(2, new Point(0, 0, -10));
+        plane = new Plane(new Point(0, 0, -20), new Point(1, 0, -20), new Point(0, 1, -20));
+        triangle = new Triangle(new Point(-3, -3, -10), new Point(3, -3, -10), new Point(0, 3, -10));
+        polygon = new Polygon(new Point(-3, -3, -10), new Point(3, -3, -10), new Point(3, 3, -10), new Point(-3, 3, -10));
+        tube = new Tube(1, new Ray(new Point(0, 0, -10), new Vector(0, 1, 0)));
+        hitRay = new Ray(Point.ZERO, new Vector(0.01, 0.02, -1));
+        missRay = new Ray(Point.ZERO, new Vector(1, 1, 0.1));
+    }
+
+    @Benchmark
+    public List<GeoPoint> sphereHit() { return sphere.findGeoIntersections(hitRay); }
+
+    @Benchmark
+    public List<GeoPoint> sphereMiss() { return sphere.findGeoIntersections(missRay); }
+
+    @Benchmark
+    public List<GeoPoint> planeHit() { return plane.findGeoIntersections(hitRay); }
+
+    @Benchmark
+    public List<GeoPoint> planeMiss() { return plane.findGeoIntersections(missRay); }
+
+    @Benchmark
+    public List<GeoPoint> triangleHit() { return triangle.findGeoIntersections(hitRay); }
+
+    @Benchmark
+    public List<GeoPoint> triangleMiss() { return triangle.findGeoIntersections(missRay); }
+
+    @Benchmark
+    public List<GeoPoint> polygonHit() { return polygon.findGeoIntersections(hitRay); }
+
+    @Benchmark
+    public List<GeoPoint> polygonMiss() { return polygon.findGeoIntersections(missRay); }
+
+    @Benchmark
+    public List<GeoPoint> tubeHit() { return tube.findGeoIntersections(hitRay); }
+
+    @Benchmark
+    public List<GeoPoint> tubeMiss() { return tube.findGeoIntersections(missRay); }
+}
@@ -0,0 +1,83 @@
+package primitives;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmarks of the basic arithmetic of the primitives - vectors, points and triads of numbers.
+ * The operands are kept in the benchmark state, so the JIT compiler cannot fold the calculations
+ * into constants
+ * @author Zili
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimitivesBenchmark {
+    private Vector v1;
+    private Vector v2;
+    private Point p1;
+    private Point p2;
+    private Double3 d1;
+    private Double3 d2;
+    private double scalar;
+
+    /**
+     * Initializes the operands of the benchmarks
+     */
+    @Setup
+    public void setup() {
+        v1 = new Vector(1, 2, 3);
+        v2 = new Vector(-2, 0.5, 4);
+        p1 = new Point(10, -3, 7);
+        p2 = new Point(-1, 4, 2);
+        d1 = new Double3(0.2, 0.4, 0.6);
+        d2 = new Double3(0.5, 0.25, 0.125);
+        scalar = 1.5;
+    }
+
+    @Benchmark
+    public Vector vectorAdd() { return v1.add(v2); }
+
+    @Benchmark
+    public Vector vectorScale() { return v1.scale(scalar); }
+
+    @Benchmark
+    public double vectorDotProduct() { return v1.dotProduct(v2); }
+
+    @Benchmark
+    public Vector vectorCrossProduct() { return v1.crossProduct(v2); }
+
+    @Benchmark
+    public double vectorLength() { return v1.length(); }
+
+    @Benchmark
+    public Vector vectorNormalize() { return v1.normalize(); }
+
+    @Benchmark
+    public Point pointAdd() { return p1.add(v1); }
+
+    @Benchmark
+    public Vector pointSubtract() { return p1.subtract(p2); }
+
+    @Benchmark
+    public double pointDistanceSquared() { return p1.distanceSquared(p2); }
+
+    @Benchmark
+    public double pointDistance() { return p1.distance(p2); }
+
+    @Benchmark
+    public Double3 double3Add() { return d1.add(d2); }
+
+    @Benchmark
+    public Double3 double3Product() { return d1.product(d2); }
+
+    @Benchmark
+    public Double3 double3Scale() { return d1.scale(scalar); }
+
+    @Benchmark
+    public boolean double3LowerThan() { return d1.lowerThan(scalar); }
+}
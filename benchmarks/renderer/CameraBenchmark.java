@@ -0,0 +1,78 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.Scene;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro benchmarks of the construction of the rays through the pixels of the view plane -
+ * a single ray per pixel and a beam of rays per pixel for antialiasing
+ * @author Zili
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CameraBenchmark {
+    /** Resolution of the view plane */
+    private static final int RESOLUTION = 1000;
+
+    private Camera camera;
+    /** The pixel of the next constructed ray - walks over the view plane */
+    private int pixel = 0;
+
+    /**
+     * Initializes the camera of the benchmarks
+     */
+    @Setup
+    public void setup() {
+        camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(new Scene("Benchmark")))
+                .setImageWriter(new ImageWriter("Benchmark", RESOLUTION, RESOLUTION))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(100)
+                .setVpSize(200, 200)
+                .build();
+    }
+
+    /**
+     * Advances to the next pixel of the view plane, so the rays are constructed through
+     * different pixels like in a real rendering
+     * @return the index of the pixel
+     */
+    private int nextPixel() {
+        pixel = (pixel + 1) % (RESOLUTION * RESOLUTION);
+        return pixel;
+    }
+
+    @Benchmark
+    public Ray constructRay() {
+        int p = nextPixel();
+        return camera.constructRay(RESOLUTION, RESOLUTION, p % RESOLUTION, p / RESOLUTION);
+    }
+
+    @Benchmark
+    public List<Ray> constructBeamOfRays(Beam beam) {
+        int p = nextPixel();
+        return camera.constructBeamOfRays(RESOLUTION, RESOLUTION, p % RESOLUTION, p / RESOLUTION, beam.size);
+    }
+
+    /**
+     * The size of the beam of rays, kept in a separate state so only the beam benchmark
+     * runs for each size
+     */
+    @State(Scope.Thread)
+    public static class Beam {
+        /** The amount of rays in a beam */
+        @Param({"9", "81"})
+        public int size;
+    }
+}
@@ -0,0 +1,50 @@
+package renderer;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end benchmarks of rendering the scenes of the rendering tests - building the scene,
+ * rendering it and writing the image file. Each benchmark runs a test method on a new test
+ * object, exactly as the test runner does, so the timing follows the scenes of the tests
+ * @author Zili
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderBenchmark {
+    @Benchmark
+    public void renderTwoColor() { new RenderTests().renderTwoColorTest(); }
+
+    @Benchmark
+    public void renderMultiColor() { new RenderTests().renderMultiColorTest(); }
+
+    @Benchmark
+    public void twoSpheres() { new ReflectionRefractionTest().twoSpheres(); }
+
+    @Benchmark
+    public void twoSpheresOnMirrors() { new ReflectionRefractionTest().twoSpheresOnMirrors(); }
+
+    @Benchmark
+    public void trianglesTransparentSphere() { new ReflectionRefractionTest().trianglesTransparentSphere(); }
+
+    /**
+     * The final images are rendered with 1000 rays per pixel and take minutes each,
+     * so they are measured once, without warming up
+     */
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Benchmark
+    public void finalImage() { new FinalImageTest().finalImage(); }
+
+    /**
+     * @see #finalImage()
+     */
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Benchmark
+    public void teddyBearImage() { new FinalImageTest().teddyBearImage(); }
+}
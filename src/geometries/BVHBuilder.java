@@ -0,0 +1,421 @@
+package geometries;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Builder of a bounding volume hierarchy (BVH) over a list of bounded bodies.
+ * The hierarchy is built from nodes of {@link Geometries}, each holding two sub-nodes or a few bodies.
+ * The quality of the tree can be traded off against its build time by the split method:
+ * <ul>
+ * <li>{@link SplitMethod#MEDIAN} - splits in the middle of the longest axis, fast to build (previews)</li>
+ * <li>{@link SplitMethod#SAH} - surface area heuristic with a full sweep of all the split positions,
+ * falling back to the binned version for large nodes</li>
+ * <li>{@link SplitMethod#BINNED_SAH} - surface area heuristic evaluated over a fixed amount of bins</li>
+ * </ul>
+ * @author Zili
+ */
+public class BVHBuilder {
+
+    /**
+     * The method used to split a node of the hierarchy into two sub-nodes
+     */
+    public enum SplitMethod {
+        /** Split the bodies in the middle of the longest axis of their centers */
+        MEDIAN,
+        /** Full sweep surface area heuristic (binned for large nodes) */
+        SAH,
+        /** Binned surface area heuristic */
+        BINNED_SAH
+    }
+
+    /** The cost of traversing a node relative to the cost of intersecting a body */
+    private static final double TRAVERSAL_COST = 1;
+    /** The cost of intersecting a body */
+    private static final double INTERSECTION_COST = 1;
+    /** The amount of bins used by the binned surface area heuristic */
+    private static final int BINS = 16;
+    /** Above this amount of bodies in a node the full sweep is replaced by the binned heuristic */
+    private static final int SWEEP_THRESHOLD = 1024;
+    /** The maximal amount of bodies in a leaf built by the median split */
+    private static final int MEDIAN_LEAF_SIZE = 2;
+    /** The maximal amount of bodies in a leaf built by the surface area heuristic */
+    private static final int SAH_LEAF_SIZE = 4;
+
+    /**
+     * A body with its cached bounding box and box center
+     */
+    private static class Item {
+        /** The bounded body */
+        final Intersectable body;
+        /** The bounding box of the body */
+        final BoundingBox box;
+        /** The center of the box on each axis */
+        final double[] center;
+
+        /**
+         * Constructs an item for a bounded body
+         * @param body the body
+         */
+        Item(Intersectable body) {
+            this.body = body;
+            this.box = body.getBoundingBox();
+            this.center = new double[] { box.getCenter(0), box.getCenter(1), box.getCenter(2) };
+        }
+    }
+
+    /**
+     * Statistics of a built hierarchy
+     */
+    public static class Statistics {
+        /** The split method used for building the hierarchy */
+        public final SplitMethod splitMethod;
+        /** Build time in milliseconds */
+        public double buildTime;
+        /** The amount of the bounded bodies in the hierarchy */
+        public int bodies;
+        /** The amount of inner nodes in the hierarchy */
+        public int innerNodes;
+        /** The amount of leaves in the hierarchy */
+        public int leaves;
+        /** The depth of the deepest leaf (the root is in depth 0) */
+        public int maxDepth;
+        /** The smallest amount of bodies in a leaf */
+        public int minLeafSize = Integer.MAX_VALUE;
+        /** The largest amount of bodies in a leaf */
+        public int maxLeafSize;
+        /** The cost of the hierarchy according to the surface area heuristic */
+        public double sahCost;
+
+        /**
+         * Constructs empty statistics for a given split method
+         * @param splitMethod the split method of the hierarchy
+         */
+        Statistics(SplitMethod splitMethod) {
+            this.splitMethod = splitMethod;
+        }
+
+        /**
+         * Returns the average amount of bodies in a leaf
+         * @return the average leaf size
+         */
+        public double getAverageLeafSize() {
+            return leaves == 0 ? 0 : (double) bodies / leaves;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("BVH %s: %d bodies, %d inner nodes, %d leaves, depth %d, leaf size %d-%d (avg %.2f), "
+                            + "SAH cost %.2f, built in %.1f ms", splitMethod, bodies, innerNodes, leaves, maxDepth,
+                    leaves == 0 ? 0 : minLeafSize, maxLeafSize, getAverageLeafSize(), sahCost, buildTime);
+        }
+    }
+
+    /** The split method of the builder */
+    private final SplitMethod splitMethod;
+    /** The statistics of the last built hierarchy */
+    private Statistics statistics;
+
+    /**
+     * Constructs a builder with a given split method
+     * @param splitMethod the split method
+     */
+    public BVHBuilder(SplitMethod splitMethod) {
+        this.splitMethod = splitMethod;
+    }
+
+    /**
+     * Returns the statistics of the last built hierarchy
+     * @return the statistics, or null if nothing was built yet
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Builds a hierarchy over a list of bounded bodies
+     * @param bodies the bodies, all of them must have a bounding box
+     * @return the root of the hierarchy, or null if the list is empty
+     */
+    public Intersectable build(List<Intersectable> bodies) {
+        long start = System.nanoTime();
+        statistics = new Statistics(splitMethod);
+        if (bodies.isEmpty())
+            return null;
+
+        Item[] items = new Item[bodies.size()];
+        int i = 0;
+        for (Intersectable body : bodies)
+            items[i++] = new Item(body);
+        Intersectable root = build(items, 0, items.length);
+
+        double rootArea = root.getBoundingBox().getSurfaceArea();
+        collectStatistics(root, 0, rootArea == 0 ? 1 : rootArea);
+        statistics.buildTime = (System.nanoTime() - start) / 1e6;
+        return root;
+    }
+
+    /**
+     * Recursively builds a node over a range of items
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the node
+     */
+    private Intersectable build(Item[] items, int from, int to) {
+        int count = to - from;
+        if (count == 1)
+            return items[from].body;
+
+        int middle = switch (splitMethod) {
+            case MEDIAN -> count <= MEDIAN_LEAF_SIZE ? -1 : medianSplit(items, from, to);
+            case SAH -> count <= SWEEP_THRESHOLD ? sweepSplit(items, from, to) : binnedSplit(items, from, to);
+            case BINNED_SAH -> binnedSplit(items, from, to);
+        };
+        if (middle < 0)
+            return leaf(items, from, to);
+
+        return new Geometries(Arrays.asList(build(items, from, middle), build(items, middle, to)));
+    }
+
+    /**
+     * Creates a leaf node holding a range of items
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the leaf
+     */
+    private static Geometries leaf(Item[] items, int from, int to) {
+        Intersectable[] bodies = new Intersectable[to - from];
+        for (int i = from; i < to; ++i)
+            bodies[i - from] = items[i].body;
+        return new Geometries(Arrays.asList(bodies));
+    }
+
+    /**
+     * Finds the axis along which the centers of a range of items are spread the most
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the axis, or -1 if all the centers are in the same point
+     */
+    private static int longestCenterAxis(Item[] items, int from, int to) {
+        int axis = -1;
+        double longest = 0;
+        for (int a = 0; a < 3; ++a) {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; ++i) {
+                min = Math.min(min, items[i].center[a]);
+                max = Math.max(max, items[i].center[a]);
+            }
+            if (max - min > longest) {
+                longest = max - min;
+                axis = a;
+            }
+        }
+        return axis;
+    }
+
+    /**
+     * Sorts a range of items by their centers along the longest axis and splits it in the middle
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the index of the first item of the second part
+     */
+    private static int medianSplit(Item[] items, int from, int to) {
+        int axis = longestCenterAxis(items, from, to);
+        if (axis >= 0)
+            Arrays.sort(items, from, to, Comparator.comparingDouble(item -> item.center[axis]));
+        return (from + to) / 2;
+    }
+
+    /**
+     * Checks whether a range of items should be kept as a leaf instead of being split
+     * @param count     the amount of items in the range
+     * @param area      the surface area of the box of the range
+     * @param splitCost the (not normalized) cost of the best split
+     * @return true if a leaf is cheaper than the best split
+     */
+    private static boolean leafIsCheaper(int count, double area, double splitCost) {
+        if (count > SAH_LEAF_SIZE)
+            return false;
+        return area == 0 || count * INTERSECTION_COST <= TRAVERSAL_COST + splitCost / area;
+    }
+
+    /**
+     * Splits a range of items according to the surface area heuristic, checking all the split positions
+     * along all the axes
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the index of the first item of the second part, or -1 if a leaf is cheaper
+     */
+    private static int sweepSplit(Item[] items, int from, int to) {
+        int count = to - from;
+        double[] rightAreas = new double[count];
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestSplit = -1;
+        BoundingBox total = null;
+
+        for (int axis = 0; axis < 3; ++axis) {
+            final int a = axis;
+            Arrays.sort(items, from, to, Comparator.comparingDouble(item -> item.center[a]));
+
+            // areas of the boxes of all the suffixes
+            BoundingBox box = null;
+            for (int i = to - 1; i > from; --i) {
+                box = box == null ? items[i].box : box.union(items[i].box);
+                rightAreas[i - from] = box.getSurfaceArea();
+            }
+            total = box == null ? items[from].box : box.union(items[from].box);
+
+            // sweep the prefixes
+            box = null;
+            for (int i = from + 1; i < to; ++i) {
+                box = box == null ? items[i - 1].box : box.union(items[i - 1].box);
+                double cost = box.getSurfaceArea() * (i - from) + rightAreas[i - from] * (to - i);
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestSplit = i;
+                }
+            }
+        }
+
+        if (leafIsCheaper(count, total.getSurfaceArea(), bestCost * INTERSECTION_COST))
+            return -1;
+        if (bestAxis != 2) {
+            final int a = bestAxis;
+            Arrays.sort(items, from, to, Comparator.comparingDouble(item -> item.center[a]));
+        }
+        return bestSplit;
+    }
+
+    /**
+     * Splits a range of items according to the surface area heuristic, evaluated only on the borders of
+     * a fixed amount of bins along each axis
+     * @param items the items
+     * @param from  the first item of the range (inclusive)
+     * @param to    the last item of the range (exclusive)
+     * @return the index of the first item of the second part, or -1 if a leaf is cheaper
+     */
+    private static int binnedSplit(Item[] items, int from, int to) {
+        int count = to - from;
+        BoundingBox total = items[from].box;
+        double[] min = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY };
+        double[] max = { Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (int i = from; i < to; ++i) {
+            total = total.union(items[i].box);
+            for (int a = 0; a < 3; ++a) {
+                min[a] = Math.min(min[a], items[i].center[a]);
+                max[a] = Math.max(max[a], items[i].center[a]);
+            }
+        }
+
+        double bestCost = Double.POSITIVE_INFINITY;
+        int bestAxis = -1, bestBin = -1;
+        int[] counts = new int[BINS];
+        BoundingBox[] boxes = new BoundingBox[BINS];
+        double[] rightAreas = new double[BINS];
+        int[] rightCounts = new int[BINS];
+        for (int axis = 0; axis < 3; ++axis) {
+            double extent = max[axis] - min[axis];
+            if (extent <= 0)
+                continue;
+            Arrays.fill(counts, 0);
+            Arrays.fill(boxes, null);
+            for (int i = from; i < to; ++i) {
+                int bin = bin(items[i].center[axis], min[axis], extent);
+                ++counts[bin];
+                boxes[bin] = boxes[bin] == null ? items[i].box : boxes[bin].union(items[i].box);
+            }
+
+            // areas and counts of all the suffixes of bins
+            BoundingBox box = null;
+            int right = 0;
+            for (int b = BINS - 1; b > 0; --b) {
+                if (boxes[b] != null)
+                    box = box == null ? boxes[b] : box.union(boxes[b]);
+                right += counts[b];
+                rightAreas[b] = box == null ? 0 : box.getSurfaceArea();
+                rightCounts[b] = right;
+            }
+
+            // sweep the prefixes of bins
+            box = null;
+            int left = 0;
+            for (int b = 1; b < BINS; ++b) {
+                if (boxes[b - 1] != null)
+                    box = box == null ? boxes[b - 1] : box.union(boxes[b - 1]);
+                left += counts[b - 1];
+                if (left == 0 || rightCounts[b] == 0)
+                    continue;
+                double cost = box.getSurfaceArea() * left + rightAreas[b] * rightCounts[b];
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    bestAxis = axis;
+                    bestBin = b;
+                }
+            }
+        }
+
+        // all the centers are in the same point - a leaf, or split in the middle if there are too many
+        if (bestAxis < 0)
+            return count <= SAH_LEAF_SIZE ? -1 : (from + to) / 2;
+        if (leafIsCheaper(count, total.getSurfaceArea(), bestCost * INTERSECTION_COST))
+            return -1;
+
+        // partition the items by the chosen bin border
+        double axisMin = min[bestAxis], extent = max[bestAxis] - axisMin;
+        int i = from, j = to - 1;
+        while (i <= j) {
+            if (bin(items[i].center[bestAxis], axisMin, extent) < bestBin)
+                ++i;
+            else {
+                Item tmp = items[i];
+                items[i] = items[j];
+                items[j--] = tmp;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Calculates the bin of a center coordinate
+     * @param center the center coordinate
+     * @param min    the minimal center coordinate
+     * @param extent the extent of the center coordinates
+     * @return the bin index
+     */
+    private static int bin(double center, double min, double extent) {
+        int bin = (int) (BINS * (center - min) / extent);
+        return bin >= BINS ? BINS - 1 : bin;
+    }
+
+    /**
+     * Recursively collects the statistics of a hierarchy
+     * @param node     the root of the sub-tree
+     * @param depth    the depth of the node
+     * @param rootArea the surface area of the whole hierarchy box
+     */
+    private void collectStatistics(Intersectable node, int depth, double rootArea) {
+        double relativeArea = node.getBoundingBox().getSurfaceArea() / rootArea;
+        List<Intersectable> children = node instanceof Geometries group ? group.getBodies() : List.of(node);
+        boolean leaf = !(node instanceof Geometries) || children.stream().noneMatch(c -> c instanceof Geometries);
+        if (!leaf) {
+            ++statistics.innerNodes;
+            statistics.sahCost += TRAVERSAL_COST * relativeArea;
+            for (Intersectable child : children)
+                collectStatistics(child, depth + 1, rootArea);
+            return;
+        }
+        ++statistics.leaves;
+        statistics.bodies += children.size();
+        statistics.maxDepth = Math.max(statistics.maxDepth, depth);
+        statistics.minLeafSize = Math.min(statistics.minLeafSize, children.size());
+        statistics.maxLeafSize = Math.max(statistics.maxLeafSize, children.size());
+        statistics.sahCost += INTERSECTION_COST * relativeArea * children.size();
+    }
+}
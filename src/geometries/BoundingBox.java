@@ -0,0 +1,183 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+/**
+ * Axis aligned bounding box (AABB) of an intersectable object.
+ * The box is used for a quick rejection of rays that cannot hit the bounded object
+ * @author Zili
+ */
+public class BoundingBox {
+    /** Minimal x coordinate of the box */
+    final double minX;
+    /** Minimal y coordinate of the box */
+    final double minY;
+    /** Minimal z coordinate of the box */
+    final double minZ;
+    /** Maximal x coordinate of the box */
+    final double maxX;
+    /** Maximal y coordinate of the box */
+    final double maxY;
+    /** Maximal z coordinate of the box */
+    final double maxZ;
+
+    /**
+     * Constructs a box according to its minimal and maximal coordinates
+     * @param minX minimal x coordinate
+     * @param minY minimal y coordinate
+     * @param minZ minimal z coordinate
+     * @param maxX maximal x coordinate
+     * @param maxY maximal y coordinate
+     * @param maxZ maximal z coordinate
+     */
+    public BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Constructs the smallest box that contains all the given points
+     * @param points the points to bound
+     */
+    public BoundingBox(Point... points) {
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY, z0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY, z1 = Double.NEGATIVE_INFINITY;
+        for (Point p : points) {
+            x0 = Math.min(x0, p.getX());
+            y0 = Math.min(y0, p.getY());
+            z0 = Math.min(z0, p.getZ());
+            x1 = Math.max(x1, p.getX());
+            y1 = Math.max(y1, p.getY());
+            z1 = Math.max(z1, p.getZ());
+        }
+        minX = x0;
+        minY = y0;
+        minZ = z0;
+        maxX = x1;
+        maxY = y1;
+        maxZ = z1;
+    }
+
+    /**
+     * Returns the smallest box containing both this box and another box
+     * @param other the other box
+     * @return the union of the two boxes as a new box
+     */
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(Math.min(minX, other.minX), Math.min(minY, other.minY), Math.min(minZ, other.minZ),
+                Math.max(maxX, other.maxX), Math.max(maxY, other.maxY), Math.max(maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns the minimal coordinate of the box on a given axis
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the minimal coordinate on the axis
+     */
+    public double getMin(int axis) {
+        return axis == 0 ? minX : axis == 1 ? minY : minZ;
+    }
+
+    /**
+     * Returns the maximal coordinate of the box on a given axis
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the maximal coordinate on the axis
+     */
+    public double getMax(int axis) {
+        return axis == 0 ? maxX : axis == 1 ? maxY : maxZ;
+    }
+
+    /**
+     * Returns the coordinate of the center of the box on a given axis
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the center coordinate on the axis
+     */
+    public double getCenter(int axis) {
+        return (getMin(axis) + getMax(axis)) / 2;
+    }
+
+    /**
+     * Returns the axis along which the box is the longest
+     * @return 0 for x, 1 for y and 2 for z
+     */
+    public int getLongestAxis() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return dx >= dy && dx >= dz ? 0 : dy >= dz ? 1 : 2;
+    }
+
+    /**
+     * Calculates the surface area of the box
+     * @return the surface area of the box
+     */
+    public double getSurfaceArea() {
+        double dx = maxX - minX, dy = maxY - minY, dz = maxZ - minZ;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Checks whether a ray passes through the box
+     * @param ray the ray to check
+     * @return true if the ray crosses the box in front of its head
+     */
+    public boolean intersects(Ray ray) {
+        return intersects(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Checks whether a ray passes through the box closer than a given distance from its head
+     * @param ray         the ray to check
+     * @param maxDistance the maximal distance from the ray's head
+     * @return true if the ray crosses the box within the distance
+     */
+    public boolean intersects(Ray ray, double maxDistance) {
+        return distance(ray, maxDistance) != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Calculates the distance from the ray's head to the point where the ray enters the box,
+     * using the slab method over the reciprocals of the ray direction precomputed by the ray
+     * @param ray         the ray to check
+     * @param maxDistance the maximal distance from the ray's head
+     * @return the distance to the entry point (0 if the head is inside the box), or positive infinity
+     * if the ray does not cross the box within the maximal distance
+     */
+    public double distance(Ray ray, double maxDistance) {
+        Point head = ray.getHead();
+        double tMin = 0, tMax = maxDistance;
+
+        // x slab
+        double inv = ray.getInverseX();
+        double t0 = (minX - head.getX()) * inv, t1 = (maxX - head.getX()) * inv;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+
+        // y slab
+        inv = ray.getInverseY();
+        t0 = (minY - head.getY()) * inv;
+        t1 = (maxY - head.getY()) * inv;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+
+        // z slab
+        inv = ray.getInverseZ();
+        t0 = (minZ - head.getZ()) * inv;
+        t1 = (maxZ - head.getZ()) * inv;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        return tMin <= tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public String toString() {
+        return "BoundingBox (" + minX + "," + minY + "," + minZ + ")-(" + maxX + "," + maxY + "," + maxZ + ")";
+    }
+}
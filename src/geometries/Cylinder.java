@@ -1,13 +1,19 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
 
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
 /**
- *Represents a cylinder in 3D space, which is a finite tube
+ *Represents a cylinder in 3D space, which is a finite tube closed by two bases.
+ * The bottom base is centered at the head of the axis ray and the top base is at the height
+ * of the cylinder along the axis
  * @author Zili
  */
 public class Cylinder extends Tube{
@@ -24,17 +30,131 @@ public class Cylinder extends Tube{
     public Cylinder(double radius, Ray axis, double height) {
         super(radius, axis);
         this.height = height;
-    }
 
+        // the box of the two bases - a base spreads along each axis according to how much it is tilted to it
+        Point base = axis.getHead();
+        Vector dir = axis.getDirection();
+        Point top = base.add(dir, height);
+        double ex = radius * Math.sqrt(Math.max(0, 1 - dir.getX() * dir.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - dir.getY() * dir.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - dir.getZ() * dir.getZ()));
+        boundingBox = new BoundingBox(Math.min(base.getX(), top.getX()) - ex, Math.min(base.getY(), top.getY()) - ey,
+                Math.min(base.getZ(), top.getZ()) - ez, Math.max(base.getX(), top.getX()) + ex,
+                Math.max(base.getY(), top.getY()) + ey, Math.max(base.getZ(), top.getZ()) + ez);
+    }
 
     @Override
     public Vector getNormal(Point p) {
-        return null;
+        Point base = axis.getHead();
+        Vector v = axis.getDirection();
+        double level = (p.getX() - base.getX()) * v.getX() + (p.getY() - base.getY()) * v.getY()
+                + (p.getZ() - base.getZ()) * v.getZ();
+        // a point on a base - the normal is the axis direction (outwards)
+        if (isZero(level))
+            return v.scale(-1);
+        if (isZero(level - height))
+            return v;
+        // a point on the side - the normal is from the axis to the point
+        return p.subtract(base.add(v, level)).normalize();
+    }
+
+    @Override
+    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        countTest();
+        double t1 = distance(ray, 0);
+        if (t1 == Double.POSITIVE_INFINITY)
+            return null;
+        double t2 = distance(ray, t1);
+        return t2 == Double.POSITIVE_INFINITY ? List.of(new GeoPoint(this, ray.getPoint(t1)))
+                : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2)));
     }
 
     @Override
-    public List<Point> findIntersections(Ray ray) {
-        return null;
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        countTest();
+        double t = distance(hit.getRay(), 0);
+        if (t >= hit.t)
+            return false;
+        hit.set(t, this);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        countTest();
+        for (double t = distance(ray, 0); t != Double.POSITIVE_INFINITY && t <= maxDistance; t = distance(ray, t)) {
+            ktr = ktr.product(getMaterial().kT);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * Calculates the distance from the head of a ray to the nearest point where it crosses the surface of
+     * the cylinder (its side or one of its bases) after a given distance. The ray is checked against the
+     * tube of the side within the height of the cylinder, and against the planes of the bases within the
+     * radius, without creating any vectors. Rays touching the side or the rims of the bases are not
+     * considered as crossing the cylinder
+     * @param ray   the ray
+     * @param after the distance that the intersection must be after (0 for the nearest intersection)
+     * @return the distance to the intersection, or positive infinity if there is no intersection after the distance
+     */
+    private double distance(Ray ray, double after) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        Point base = axis.getHead();
+        Vector v = axis.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double vx = v.getX(), vy = v.getY(), vz = v.getZ();
+        double px = head.getX() - base.getX(), py = head.getY() - base.getY(), pz = head.getZ() - base.getZ();
+
+        double dirV = dx * vx + dy * vy + dz * vz;
+        double pV = px * vx + py * vy + pz * vz;
+        double best = Double.POSITIVE_INFINITY;
+
+        // the side - the tube equation, limited to the height of the cylinder
+        double a = 1 - dirV * dirV;
+        if (!isZero(a)) {
+            double b = 2 * (dx * px + dy * py + dz * pz - dirV * pV);
+            double c = px * px + py * py + pz * pz - pV * pV - radius * radius;
+            double discriminant = alignZero(b * b - 4 * a * c);
+            if (discriminant > 0) {
+                double sqrt = Math.sqrt(discriminant);
+                best = nearer(best, (-b - sqrt) / (2 * a), after, pV, dirV);
+                best = nearer(best, (-b + sqrt) / (2 * a), after, pV, dirV);
+            }
+        }
+
+        // the bases - the planes of the bases, limited to the radius
+        if (!isZero(dirV))
+            for (int i = 0; i < 2; ++i) {
+                double level = i == 0 ? 0 : height;
+                double t = (level - pV) / dirV;
+                if (alignZero(t - after) <= 0 || alignZero(t) <= 0 || t >= best)
+                    continue;
+                double qx = px + t * dx - level * vx, qy = py + t * dy - level * vy, qz = pz + t * dz - level * vz;
+                if (alignZero(qx * qx + qy * qy + qz * qz - radius * radius) < 0)
+                    best = t;
+            }
+        return best;
+    }
+
+    /**
+     * Chooses the nearer of an intersection found so far and an intersection with the side of the cylinder,
+     * which counts only if it is after a given distance and within the height of the cylinder
+     * @param best  the distance of the nearest intersection found so far
+     * @param t     the distance of the intersection with the infinite tube of the side
+     * @param after the distance that the intersection must be after
+     * @param pV    the height of the ray's head along the axis
+     * @param dirV  the height the ray climbs along the axis per a unit of distance
+     * @return the distance of the nearer intersection
+     */
+    private double nearer(double best, double t, double after, double pV, double dirV) {
+        if (alignZero(t - after) <= 0 || alignZero(t) <= 0 || t >= best)
+            return best;
+        double level = pV + t * dirV;
+        return alignZero(level) > 0 && alignZero(level - height) < 0 ? t : best;
     }
 
 }
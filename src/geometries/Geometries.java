@@ -1,10 +1,10 @@
 package geometries;
 
-import primitives.Point;
+import primitives.Double3;
 import primitives.Ray;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -15,14 +15,44 @@ import java.util.List;
 public class Geometries extends Intersectable{
 
     /**
-     *A list of different geometric objects in the scene
+     *A list of different geometric objects in the scene. Building a spatial index ({@link #buildBVH} or
+     * {@link #buildGrid}) replaces the list instead of changing it, so rays traced over the group at the same
+     * time keep going over the previous list. Adding bodies and turning the box culling on or off change
+     * the group in place, and must not be done while rays are traced over it
      */
-    private final List<Intersectable> geometricBodies=new LinkedList<Intersectable>();
+    private volatile List<Intersectable> geometricBodies=new LinkedList<Intersectable>();
+
+    /**
+     *True if the group is a node of a bounding volume hierarchy - the rays are checked
+     * against the bounding box of the node before checking its bodies
+     */
+    private final boolean bvhNode;
+
+    /**
+     *True if the rays are checked against the bounding boxes of the bounded bodies before
+     * checking the bodies themselves
+     */
+    private boolean boxCulling = false;
+
+    /**
+     *True if at least one of the bodies in the group is unbounded
+     */
+    private boolean unbounded = false;
+
+    /**
+     *Statistics of the last bounding volume hierarchy built over the group
+     */
+    private volatile BVHBuilder.Statistics bvhStatistics = null;
+
+    /**
+     *The last uniform grid built over the group
+     */
+    private volatile UniformGrid grid = null;
 
     /**
      *Empty constructor
      */
-    public Geometries(){}
+    public Geometries(){ bvhNode = false; }
 
     /**
      *Parameters constructor
@@ -33,20 +63,189 @@ public class Geometries extends Intersectable{
         add(geometries);
     }
 
+    /**
+     *Constructs a node of the bounding volume hierarchy
+     * @param bodies the bounded bodies of the node
+     */
+    Geometries(List<Intersectable> bodies) {
+        bvhNode = true;
+        for (Intersectable body : bodies)
+            addBody(body);
+    }
+
     /**
      *The method adds all the geometric bodies in 'geometries' to the list structure
      * @param geometries Different geometric bodies to add to the list
      */
     public void add(Intersectable... geometries){
-        geometricBodies.addAll(Arrays.asList(geometries));
+        for (Intersectable geometry : geometries)
+            addBody(geometry);
+        //the hierarchy or the grid no longer covers all the bodies
+        bvhStatistics = null;
+        grid = null;
     }
 
+    /**
+     *Adds a single body to the list and extends the bounding box of the group to contain it
+     * @param body the body to add
+     */
+    private void addBody(Intersectable body) {
+        if (!body.isBounded())
+            unbounded = unbounded || !(body instanceof Geometries group && group.geometricBodies.isEmpty());
+        else
+            boundingBox = boundingBox == null ? body.getBoundingBox() : boundingBox.union(body.getBoundingBox());
+        geometricBodies.add(body);
+    }
+
+    @Override
+    public BoundingBox getBoundingBox() {
+        return unbounded ? null : boundingBox;
+    }
+
+    /**
+     *Turns on or off the box culling of the group - a ray is checked against the bounding box of each
+     * bounded body (a cheap slab test) and the intersections with the body are calculated only if the ray
+     * crosses its box. Unbounded bodies are always checked. The nodes of a bounding volume hierarchy
+     * always check their boxes, so the culling is useful for flat groups of bodies
+     * @param boxCulling true for checking the boxes of the bodies before the bodies
+     * @return the group itself
+     */
+    public Geometries setBoxCulling(boolean boxCulling) {
+        this.boxCulling = boxCulling;
+        return this;
+    }
+
+    /**
+     *Checks whether the ray may hit a body of the group - the box of the body is checked only in the
+     * box culling mode
+     * @param body        the body
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the intersections from the head of the ray
+     * @return false if the body is culled by its box
+     */
+    private boolean mayHit(Intersectable body, Ray ray, double maxDistance) {
+        if (!boxCulling)
+            return true;
+        BoundingBox box = body.getBoundingBox();
+        return box == null || box.intersects(ray, maxDistance);
+    }
+
+    /**
+     *Returns the bodies of the group
+     * @return an unmodifiable view of the list of bodies
+     */
+    List<Intersectable> getBodies() {
+        return Collections.unmodifiableList(geometricBodies);
+    }
+
+    /**
+     *Returns the statistics of the last bounding volume hierarchy built over the group
+     * @return the statistics, or null if no hierarchy was built or bodies were added since it was built
+     */
+    public BVHBuilder.Statistics getBVHStatistics() {
+        return bvhStatistics;
+    }
+
+    /**
+     *Returns the last uniform grid built over the group
+     * @return the grid, or null if no grid was built or bodies were added since it was built
+     */
+    public UniformGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     *Builds a bounding volume hierarchy over the bodies of the group using the surface area heuristic
+     * @return the group itself
+     * @see #buildBVH(BVHBuilder.SplitMethod)
+     */
+    public Geometries buildBVH() {
+        return buildBVH(BVHBuilder.SplitMethod.SAH);
+    }
+
+    /**
+     *Builds a bounding volume hierarchy (BVH) over the bodies of the group.
+     * The bounded bodies (including the bodies of nested groups) are arranged in a binary tree
+     * of groups, each checked by its bounding box before its bodies are checked, so that a ray
+     * checks only the bodies whose boxes it crosses. Unbounded bodies (like planes and tubes)
+     * are kept at the top of the hierarchy and are always checked.
+     * @param splitMethod the method for splitting the nodes of the hierarchy
+     * @return the group itself
+     */
+    public Geometries buildBVH(BVHBuilder.SplitMethod splitMethod) {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> infinite = new LinkedList<>();
+        flatten(bounded, infinite);
+
+        BVHBuilder builder = new BVHBuilder(splitMethod);
+        Intersectable root = builder.build(bounded);
+        bvhStatistics = builder.getStatistics();
+        grid = null;
+        replaceBodies(infinite, root);
+        return this;
+    }
+
+    /**
+     *Builds a uniform grid over the bodies of the group, as an alternative to the bounding volume hierarchy
+     * for many bodies of similar sizes. The bounded bodies (including the bodies of nested groups) are
+     * placed in the cells of the grid, and a ray checks only the bodies in the cells it crosses.
+     * Unbounded bodies (like planes and tubes) are kept in the group next to the grid and are always checked.
+     * @return the group itself
+     * @see UniformGrid
+     */
+    public Geometries buildGrid() {
+        List<Intersectable> bounded = new ArrayList<>();
+        List<Intersectable> infinite = new LinkedList<>();
+        flatten(bounded, infinite);
+
+        grid = bounded.isEmpty() ? null : new UniformGrid(bounded);
+        bvhStatistics = null;
+        replaceBodies(infinite, grid);
+        return this;
+    }
+
+    /**
+     *Replaces the bodies of the group by the unbounded bodies and the structure holding the bounded bodies.
+     * The new list is built aside and swapped in at once, and the previous list is left unchanged for the
+     * rays going over it. The bounding box of the group stays the same, since the same bodies are kept
+     * @param infinite  the unbounded bodies
+     * @param structure the root of the structure over the bounded bodies, null if there are none
+     */
+    private void replaceBodies(List<Intersectable> infinite, Intersectable structure) {
+        List<Intersectable> bodies = new LinkedList<>(infinite);
+        if (structure != null)
+            bodies.add(structure);
+        geometricBodies = bodies;
+    }
+
+    /**
+     *Collects the bodies of the group and of all its nested groups
+     * @param bounded  the list to fill with the bounded bodies
+     * @param infinite the list to fill with the unbounded bodies
+     */
+    private void flatten(List<Intersectable> bounded, List<Intersectable> infinite) {
+        for (Intersectable body : geometricBodies) {
+            if (body instanceof Geometries group)
+                group.flatten(bounded, infinite);
+            else if (body instanceof UniformGrid cells)
+                bounded.addAll(cells.getBodies());
+            else if (!body.isBounded())
+                infinite.add(body);
+            else
+                bounded.add(body);
+        }
+    }
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        //a node of the hierarchy is skipped entirely if the ray misses its box
+        if (bvhNode && !boundingBox.intersects(ray))
+            return null;
         List<GeoPoint> intersections = null;
         //Find the intersections for every shape
         for (Intersectable geometry : this.geometricBodies) {
+            if (!mayHit(geometry, ray, Double.POSITIVE_INFINITY))
+                continue;
             List<GeoPoint> tmpIntersections = geometry.findGeoIntersections(ray);
             if (tmpIntersections != null) {
                 if (intersections == null) {//for the first intersection found
@@ -57,4 +256,78 @@ public class Geometries extends Intersectable{
         }
         return intersections;
     }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        //a node of the hierarchy is skipped entirely if the ray misses its box before the closest intersection
+        if (bvhNode && !boundingBox.intersects(hit.getRay(), hit.t))
+            return false;
+        return findClosestInBodies(hit);
+    }
+
+    /**
+     *Finds the closest intersection with the bodies of the group, passing the record of the closest
+     * intersection found so far to the next bodies. The two sub-nodes of a hierarchy node are visited
+     * from the nearest box to the farthest, and the farther one is skipped if its box begins after the
+     * closest intersection found in the nearer one
+     * @param hit the hit record holding the ray and the closest intersection found so far
+     * @return true if a closer intersection was found and recorded
+     */
+    private boolean findClosestInBodies(HitRecord hit) {
+        List<Intersectable> bodies = geometricBodies;
+        if (bvhNode && bodies.size() == 2) {
+            Ray ray = hit.getRay();
+            Intersectable near = bodies.get(0), far = bodies.get(1);
+            double nearDistance = near.getBoundingBox().distance(ray, hit.t);
+            double farDistance = far.getBoundingBox().distance(ray, hit.t);
+            if (farDistance < nearDistance) {
+                Intersectable tmp = near;
+                near = far;
+                far = tmp;
+                double tmpDistance = nearDistance;
+                nearDistance = farDistance;
+                farDistance = tmpDistance;
+            }
+            if (nearDistance == Double.POSITIVE_INFINITY)
+                return false;
+
+            boolean found = findClosestInChild(near, hit);
+            if (farDistance < hit.t)
+                found = findClosestInChild(far, hit) || found;
+            return found;
+        }
+
+        boolean found = false;
+        for (Intersectable geometry : bodies)
+            if (mayHit(geometry, hit.getRay(), hit.t))
+                found = geometry.findClosestHitHelper(hit) || found;
+        return found;
+    }
+
+    /**
+     *Finds the closest intersection with a child of a hierarchy node whose box was already checked
+     * @param child the child body
+     * @param hit   the hit record holding the ray and the closest intersection found so far
+     * @return true if a closer intersection was found and recorded
+     */
+    private static boolean findClosestInChild(Intersectable child, HitRecord hit) {
+        return child instanceof Geometries node && node.bvhNode
+                ? node.findClosestInBodies(hit)
+                : child.findClosestHitHelper(hit);
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        if (bvhNode && !boundingBox.intersects(ray, maxDistance))
+            return ktr;
+        for (Intersectable geometry : geometricBodies) {
+            if (!mayHit(geometry, ray, maxDistance))
+                continue;
+            ktr = geometry.findTransparencyHelper(ray, maxDistance, ktr, minK);
+            //no need to check the rest of the bodies once the ray is blocked
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
 }
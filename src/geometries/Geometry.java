@@ -25,6 +25,17 @@ public abstract class Geometry extends  Intersectable{
      */
      public abstract Vector getNormal(Point point);
 
+    /**
+     * Returns normalized vector to a geometry at a given point on a known face of the geometry.
+     * Geometries made of many faces (like meshes) override it to avoid searching for the face
+     * @param point the point where the normal is required
+     * @param face  the index of the face of the point, -1 if unknown
+     * @return normalized vector to a geometry at a given point
+     */
+    Vector getNormal(Point point, int face) {
+        return getNormal(point);
+    }
+
 
     /**
      * Returns the emission color of the geometry.
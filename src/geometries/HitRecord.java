@@ -0,0 +1,173 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * A mutable record of the closest intersection of a ray found so far.
+ * The record is filled in place by the intersection routines, so a single record
+ * (for example one per thread) can be reused for many rays without creating
+ * intersection lists and points for the intersections that are not the closest.
+ * The point and the normal of the intersection are calculated only when requested.
+ * @author Ayala
+ */
+public class HitRecord {
+    /** The ray of the query */
+    private Ray ray;
+    /** The distance of the closest intersection from the head of the ray (the ray parameter) */
+    public double t;
+    /** The geometry of the closest intersection, null if no intersection was found */
+    public Geometry geometry;
+    /** The face of the geometry at the intersection, for geometries made of many faces (-1 otherwise) */
+    int face = -1;
+    /** The barycentric coordinates of the intersection on a triangle - the weights of its second and third vertices */
+    private double u = Double.NaN, v = Double.NaN;
+    /** The point of the intersection, calculated lazily */
+    private Point point;
+    /** The normal at the point of the intersection, calculated lazily */
+    private Vector normal;
+
+    /**
+     * Prepares the record for a new query with a given ray
+     * @param ray the ray of the query
+     * @return the record itself
+     */
+    public HitRecord reset(Ray ray) {
+        return reset(ray, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Prepares the record for a new query with a given ray, looking only for intersections
+     * closer than a given distance
+     * @param ray         the ray of the query
+     * @param maxDistance the maximal distance of the intersection from the head of the ray
+     * @return the record itself
+     */
+    public HitRecord reset(Ray ray, double maxDistance) {
+        this.ray = ray;
+        this.t = maxDistance;
+        this.geometry = null;
+        this.face = -1;
+        this.u = this.v = Double.NaN;
+        this.point = null;
+        this.normal = null;
+        return this;
+    }
+
+    /**
+     * Returns the ray of the query
+     * @return the ray
+     */
+    public Ray getRay() {
+        return ray;
+    }
+
+    /**
+     * Checks whether an intersection was found
+     * @return true if an intersection was recorded
+     */
+    public boolean hasHit() {
+        return geometry != null;
+    }
+
+    /**
+     * Records a closer intersection
+     * @param t        the distance of the intersection from the head of the ray
+     * @param geometry the intersected geometry
+     */
+    void set(double t, Geometry geometry) {
+        set(t, geometry, -1);
+    }
+
+    /**
+     * Records a closer intersection with a face of a geometry made of many faces
+     * @param t        the distance of the intersection from the head of the ray
+     * @param geometry the intersected geometry
+     * @param face     the index of the intersected face
+     */
+    void set(double t, Geometry geometry, int face) {
+        this.t = t;
+        this.geometry = geometry;
+        this.face = face;
+        this.u = this.v = Double.NaN;
+        this.point = null;
+        this.normal = null;
+    }
+
+    /**
+     * Records a closer intersection with a triangle (or a triangular face of a geometry made of many faces)
+     * together with its barycentric coordinates
+     * @param t        the distance of the intersection from the head of the ray
+     * @param geometry the intersected geometry
+     * @param face     the index of the intersected face (-1 for a single triangle)
+     * @param u        the weight of the second vertex of the triangle at the intersection
+     * @param v        the weight of the third vertex of the triangle at the intersection
+     */
+    void set(double t, Geometry geometry, int face, double u, double v) {
+        set(t, geometry, face);
+        this.u = u;
+        this.v = v;
+    }
+
+    /**
+     * Records a closer intersection whose point is already known
+     * @param t        the distance of the intersection from the head of the ray
+     * @param geometry the intersected geometry
+     * @param point    the intersection point
+     */
+    void set(double t, Geometry geometry, Point point) {
+        set(t, geometry);
+        this.point = point;
+    }
+
+    /**
+     * Returns the first barycentric coordinate of the recorded intersection on a triangle - the weight of
+     * its second vertex. The point of the intersection is (1 - u - v) * p1 + u * p2 + v * p3
+     * @return the weight of the second vertex, or NaN if the intersected geometry is not a triangle
+     */
+    public double getU() {
+        return u;
+    }
+
+    /**
+     * Returns the second barycentric coordinate of the recorded intersection on a triangle - the weight of
+     * its third vertex
+     * @return the weight of the third vertex, or NaN if the intersected geometry is not a triangle
+     */
+    public double getV() {
+        return v;
+    }
+
+    /**
+     * Returns the point of the recorded intersection
+     * @return the intersection point
+     */
+    public Point getPoint() {
+        if (point == null)
+            point = ray.getPoint(t);
+        return point;
+    }
+
+    /**
+     * Returns the normal of the geometry at the recorded intersection
+     * @return the normal at the intersection point
+     */
+    public Vector getNormal() {
+        if (normal == null)
+            normal = geometry.getNormal(getPoint(), face);
+        return normal;
+    }
+
+    /**
+     * Creates a GeoPoint of the recorded intersection
+     * @return a new GeoPoint, or null if no intersection was recorded
+     */
+    public Intersectable.GeoPoint toGeoPoint() {
+        if (geometry == null)
+            return null;
+        Intersectable.GeoPoint gp = new Intersectable.GeoPoint(geometry, getPoint());
+        gp.normal = normal;
+        return gp;
+    }
+}
@@ -1,7 +1,9 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
+import primitives.Vector;
 
 import java.util.List;
 import java.util.Objects;
@@ -14,6 +16,64 @@ import java.util.Objects;
  * @author Ayala
  */
 public abstract class Intersectable {
+    /**
+     * The axis aligned bounding box of the object, null if the object is unbounded
+     */
+    protected BoundingBox boundingBox = null;
+
+    /**
+     * The amount of the instrumented renderings in progress - the intersection tests are counted only while
+     * it is positive, otherwise counting a test costs a single read of this field
+     */
+    private static volatile int countingTests = 0;
+
+    /**
+     * The amount of intersection tests made by each thread while the tests are counted
+     */
+    private static final ThreadLocal<long[]> TESTS = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Starts or stops counting the intersection tests of all the threads. The calls are nested -
+     * the tests are counted until every start is matched by a stop
+     * @param counting true to start counting, false to stop
+     */
+    public static synchronized void countTests(boolean counting) {
+        countingTests += counting ? 1 : -1;
+    }
+
+    /**
+     * Returns the amount of intersection tests made by the current thread while the tests were counted
+     * @return the amount of intersection tests
+     */
+    public static long getTestCount() {
+        return TESTS.get()[0];
+    }
+
+    /**
+     * Counts an intersection test of a ray with a single geometry (or a face of it), if the tests are counted
+     */
+    protected static void countTest() {
+        if (countingTests > 0)
+            ++TESTS.get()[0];
+    }
+
+    /**
+     * Returns the axis aligned bounding box of the object
+     * @return the bounding box of the object, or null if the object is unbounded
+     */
+    public BoundingBox getBoundingBox() {
+        return boundingBox;
+    }
+
+    /**
+     * Checks whether the object is bounded. Finite objects have a bounding box which rays are checked
+     * against before the object itself, while unbounded objects (like planes and tubes) are always checked
+     * @return true if the object has a bounding box
+     */
+    public boolean isBounded() {
+        return getBoundingBox() != null;
+    }
+
     /**
      * Returns a list of intersection points between a given ray and the object.
      * If no intersections are found, null is returned.
@@ -38,6 +98,10 @@ public abstract class Intersectable {
          * The point coordinates.
          */
         public Point point;
+        /**
+         * The normal of the geometry at the point, calculated lazily.
+         */
+        Vector normal = null;
 
         /**
          * Constructs a GeoPoint object with the specified geometry and point coordinates
@@ -49,6 +113,17 @@ public abstract class Intersectable {
             this.point = point;
         }
 
+        /**
+         * Returns the normal of the geometry at the point. The normal is calculated once and kept for
+         * the next calls
+         * @return the normal of the geometry at the point
+         */
+        public Vector getNormal() {
+            if (normal == null)
+                normal = geometry.getNormal(point);
+            return normal;
+        }
+
         @Override
         public boolean equals(Object obj) {
             if (this == obj) return true;
@@ -79,4 +154,89 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray);
 
-}
\ No newline at end of file
+    /**
+     * Returns the closest intersection point between a given ray and the object
+     * @param ray The ray to intersect with the object.
+     * @return the closest GeoPoint to the head of the ray, or null if there are no intersections
+     */
+    public final GeoPoint findClosestGeoIntersection(Ray ray) {
+        HitRecord hit = new HitRecord().reset(ray);
+        return findClosestHitHelper(hit) ? hit.toGeoPoint() : null;
+    }
+
+    /**
+     * Finds the closest intersection between the ray of a hit record and the object, which is closer
+     * than the intersection already recorded, and records it in place
+     * @param hit the hit record holding the ray and the closest intersection found so far
+     * @return true if a closer intersection was found and recorded
+     */
+    public final boolean findClosestHit(HitRecord hit) {
+        return findClosestHitHelper(hit);
+    }
+
+    /**
+     * Finds the closest intersection between the ray of a hit record and the object, which is closer
+     * than the intersection already recorded (or than the maximal distance the record was reset with),
+     * and records it in place. Composite objects pass the same record to all their bodies, so that
+     * farther intersections are skipped without creating any objects for them.
+     * The default implementation filters the list of all the intersections, subclasses should override
+     * it for calculating only the closest intersection.
+     * @param hit the hit record holding the ray and the closest intersection found so far
+     * @return true if a closer intersection was found and recorded
+     */
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(hit.getRay());
+        if (intersections == null)
+            return false;
+        Point head = hit.getRay().getHead();
+        boolean found = false;
+        for (GeoPoint gp : intersections) {
+            double distance = gp.point.distance(head);
+            if (distance < hit.t) {
+                hit.set(distance, gp.geometry, gp.point);
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Calculates the transparency along a given ray up to a given distance from its head, which is the product
+     * of the transparency coefficients (kT) of all the geometries intersected on the way. The search is stopped
+     * as soon as the transparency drops below a given threshold (for example by an opaque geometry)
+     * @param ray         the ray (from a point towards a light source)
+     * @param maxDistance the maximal distance of the intersections from the head of the ray
+     * @param minK        the threshold below which the ray is considered completely blocked
+     * @return the transparency along the ray, or {@link Double3#ZERO} if the ray is blocked
+     */
+    public final Double3 findTransparency(Ray ray, double maxDistance, double minK) {
+        return findTransparencyHelper(ray, maxDistance, Double3.ONE, minK);
+    }
+
+    /**
+     * Multiplies a given transparency by the transparency coefficients (kT) of the object at all the intersections
+     * with a given ray up to a given distance from its head. The default implementation goes over the list of
+     * all the intersections, subclasses may override it for skipping the list.
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the intersections from the head of the ray
+     * @param ktr         the transparency accumulated so far
+     * @param minK        the threshold below which the ray is considered completely blocked
+     * @return the accumulated transparency, or {@link Double3#ZERO} if the ray is blocked
+     */
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        List<GeoPoint> intersections = findGeoIntersectionsHelper(ray);
+        if (intersections == null)
+            return ktr;
+        Point head = ray.getHead();
+        double maxDistance2 = maxDistance * maxDistance;
+        for (GeoPoint gp : intersections) {
+            if (gp.point.distanceSquared(head) <= maxDistance2) {
+                ktr = ktr.product(gp.geometry.getMaterial().kT);
+                if (ktr.lowerThan(minK))
+                    return Double3.ZERO;
+            }
+        }
+        return ktr;
+    }
+
+}
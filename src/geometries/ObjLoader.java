@@ -0,0 +1,250 @@
+package geometries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Loads triangle meshes from Wavefront OBJ files.
+ * The file is streamed through a file channel in large blocks and parsed directly from the bytes
+ * into the flat arrays of the mesh, without creating strings or points for the vertices.
+ * Only the vertices ("v") and the faces ("f") are read - texture coordinates, normals, groups and
+ * materials are ignored. Faces with more than three vertices are split into triangles around their
+ * first vertex, and negative (relative) vertex indices are supported
+ * @author Ayala
+ */
+public class ObjLoader {
+    /** Size of the blocks read from the file */
+    private static final int BLOCK_SIZE = 1 << 16;
+    /** Exact powers of ten - the numbers with up to 15 digits and such a power are parsed exactly */
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /** Coordinates of the vertices read so far */
+    private double[] vertices = new double[3 * 1024];
+    /** Amount of coordinates read so far */
+    private int vertexSize = 0;
+    /** Indices of the faces read so far */
+    private int[] indices = new int[3 * 1024];
+    /** Amount of indices read so far */
+    private int indexSize = 0;
+    /** Vertex indices of the current face */
+    private int[] face = new int[16];
+
+    /** The current line */
+    private byte[] line = new byte[256];
+    /** Length of the current line */
+    private int length;
+    /** Position of the parser in the current line */
+    private int position;
+    /** Number of the current line, for error messages */
+    private int lineNumber = 0;
+
+    /** Don't let anyone instantiate this class outside of {@link #load(Path)}. */
+    private ObjLoader() {}
+
+    /**
+     * Loads a triangle mesh from a Wavefront OBJ file
+     * @param path the path of the file
+     * @return the mesh of all the faces in the file
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed or has no faces
+     */
+    public static TriangleMesh load(Path path) throws IOException {
+        ObjLoader loader = new ObjLoader();
+        loader.read(path);
+        return new TriangleMesh(Arrays.copyOf(loader.vertices, loader.vertexSize),
+                Arrays.copyOf(loader.indices, loader.indexSize));
+    }
+
+    /**
+     * Reads the file block by block and parses it line by line
+     * @param path the path of the file
+     * @throws IOException if the file cannot be read
+     */
+    private void read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+            length = 0;
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    if (b == '\n') {
+                        parseLine();
+                        length = 0;
+                    } else {
+                        if (length == line.length)
+                            line = Arrays.copyOf(line, 2 * length);
+                        line[length++] = b;
+                    }
+                }
+                buffer.clear();
+            }
+            if (length > 0)
+                parseLine();
+        }
+    }
+
+    /**
+     * Parses the current line - a vertex, a face, or an ignored line
+     */
+    private void parseLine() {
+        ++lineNumber;
+        position = 0;
+        skipSpaces();
+        if (position + 1 >= length || !isSpace(line[position + 1]))
+            return; // an empty line, or a keyword other than "v" and "f" (like "vt", "vn", "usemtl")
+        byte keyword = line[position];
+        position += 2;
+        if (keyword == 'v')
+            parseVertex();
+        else if (keyword == 'f')
+            parseFace();
+    }
+
+    /**
+     * Parses the coordinates of a vertex
+     */
+    private void parseVertex() {
+        if (vertexSize + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, 2 * vertices.length);
+        for (int i = 0; i < 3; ++i)
+            vertices[vertexSize++] = parseDouble();
+    }
+
+    /**
+     * Parses the vertex indices of a face and splits the face into triangles
+     */
+    private void parseFace() {
+        int count = 0;
+        int vertexCount = vertexSize / 3;
+        skipSpaces();
+        while (position < length && line[position] != '#') {
+            int index = parseInt();
+            // skip the texture and normal indices ("v/vt/vn" or "v//vn")
+            while (position < length && !isSpace(line[position]))
+                ++position;
+            index = index < 0 ? vertexCount + index : index - 1;
+            if (index < 0 || index >= vertexCount)
+                throw error("face refers to a missing vertex");
+            if (count == face.length)
+                face = Arrays.copyOf(face, 2 * count);
+            face[count++] = index;
+            skipSpaces();
+        }
+        if (count < 3)
+            throw error("face has less than three vertices");
+
+        if (indexSize + 3 * (count - 2) > indices.length)
+            indices = Arrays.copyOf(indices, Math.max(2 * indices.length, indexSize + 3 * (count - 2)));
+        for (int i = 1; i < count - 1; ++i) {
+            indices[indexSize++] = face[0];
+            indices[indexSize++] = face[i];
+            indices[indexSize++] = face[i + 1];
+        }
+    }
+
+    /**
+     * Parses an integer at the current position
+     * @return the integer
+     */
+    private int parseInt() {
+        boolean negative = position < length && line[position] == '-';
+        if (negative || position < length && line[position] == '+')
+            ++position;
+        int start = position;
+        int value = 0;
+        while (position < length && isDigit(line[position]))
+            value = 10 * value + line[position++] - '0';
+        if (position == start)
+            throw error("number expected");
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a decimal number at the current position. Numbers of up to 15 significant digits with
+     * a small exponent (as written by modeling tools) are calculated exactly from their digits,
+     * the others are passed to {@link Double#parseDouble(String)}
+     * @return the number
+     */
+    private double parseDouble() {
+        skipSpaces();
+        int start = position;
+        boolean negative = position < length && line[position] == '-';
+        if (negative || position < length && line[position] == '+')
+            ++position;
+
+        long mantissa = 0;
+        int digits = 0, exponent = 0;
+        boolean anyDigit = false;
+        while (position < length && isDigit(line[position])) {
+            anyDigit = true;
+            if (mantissa != 0 || line[position] != '0') ++digits;
+            mantissa = 10 * mantissa + line[position++] - '0';
+        }
+        if (position < length && line[position] == '.') {
+            ++position;
+            while (position < length && isDigit(line[position])) {
+                anyDigit = true;
+                if (mantissa != 0 || line[position] != '0') ++digits;
+                mantissa = 10 * mantissa + line[position++] - '0';
+                --exponent;
+            }
+        }
+        if (!anyDigit)
+            throw error("number expected");
+        if (position < length && (line[position] == 'e' || line[position] == 'E')) {
+            ++position;
+            exponent += parseInt();
+        }
+        if (position < length && !isSpace(line[position]))
+            throw error("malformed number");
+
+        if (digits <= 15 && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(line, start, position - start, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Moves the current position over spaces and tabs
+     */
+    private void skipSpaces() {
+        while (position < length && isSpace(line[position]))
+            ++position;
+    }
+
+    /**
+     * Checks whether a character is a space (including the carriage return at the end of lines)
+     * @param b the character
+     * @return true if the character is a space, tab or carriage return
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Checks whether a character is a decimal digit
+     * @param b the character
+     * @return true if the character is a digit
+     */
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Creates an exception for a malformed line
+     * @param message the description of the problem
+     * @return the exception
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("OBJ line " + lineNumber + ": " + message);
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -59,6 +60,7 @@ public class Plane extends Geometry  {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        countTest();
         // Calculate the dot product of the plane's normal vector with the ray's direction vector
         double nv = normal.dotProduct(ray.getDirection());
         if (isZero(nv)) { // if the dot product is zero, the ray is parallel to the plane and doesn't
@@ -75,4 +77,44 @@ public class Plane extends Geometry  {
             return null;
         }
     }
+
+    /**
+     * Calculates the distance from the head of a ray to its intersection with the plane,
+     * using the coordinates directly without creating any vectors
+     * @param ray the ray
+     * @return the distance to the intersection, or positive infinity if the ray doesn't intersect the plane
+     */
+    double distance(Ray ray) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double nx = normal.getX(), ny = normal.getY(), nz = normal.getZ();
+        double nv = nx * dir.getX() + ny * dir.getY() + nz * dir.getZ();
+        if (isZero(nv)) // the ray is parallel to the plane
+            return Double.POSITIVE_INFINITY;
+        double dx = p0.getX() - head.getX(), dy = p0.getY() - head.getY(), dz = p0.getZ() - head.getZ();
+        if (isZero(dx) && isZero(dy) && isZero(dz)) // the ray starts at the reference point of the plane
+            return Double.POSITIVE_INFINITY;
+        double t = alignZero((nx * dx + ny * dy + nz * dz) / nv);
+        return t <= 0 ? Double.POSITIVE_INFINITY : t;
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        countTest();
+        double t = distance(hit.getRay());
+        if (t >= hit.t)
+            return false;
+        hit.set(t, this);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        countTest();
+        double t = distance(ray);
+        if (t == Double.POSITIVE_INFINITY || t > maxDistance)
+            return ktr;
+        ktr = ktr.product(getMaterial().kT);
+        return ktr.lowerThan(minK) ? Double3.ZERO : ktr;
+    }
 }
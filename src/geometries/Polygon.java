@@ -1,14 +1,14 @@
 package geometries;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
-import static primitives.Util.compareSign;
 
 /**
  * Polygon class represents two-dimensional polygon in 3D Cartesian coordinate
@@ -22,6 +22,14 @@ public class Polygon extends Geometry {
     protected final Plane       plane;
     /** The size of the polygon - the amount of the vertices in the polygon */
     private final int           size;
+    /** The coordinate axes of the projection of the polygon (0 for x, 1 for y and 2 for z) */
+    private final int           axisU, axisV;
+    /** Inward unit normals of the projected edges - the first coordinate of each normal (null if not prepared) */
+    private final double[]      edgeNu;
+    /** Inward unit normals of the projected edges - the second coordinate of each normal */
+    private final double[]      edgeNv;
+    /** The offsets of the lines of the projected edges along their normals */
+    private final double[]      edgeOffset;
 
     /**
      * Polygon constructor based on vertices list. The list must be ordered by edge
@@ -45,6 +53,19 @@ public class Polygon extends Geometry {
      *                                  </ul>
      */
     public Polygon(Point... vertices) {
+        this(true, vertices);
+    }
+
+    /**
+     * Polygon constructor for subclasses with their own intersection test, which may skip preparing the
+     * projected edges used by the intersection test of the polygon (see {@link #distance(Ray)})
+     * @param  projectedEdges           true for preparing the projected edges, false if the subclass
+     *                                  overrides {@link #distance(Ray)}
+     * @param  vertices                 list of vertices according to their order by edge path
+     * @throws IllegalArgumentException in any case of illegal combination of vertices
+     *                                  (see {@link #Polygon(Point...)})
+     */
+    protected Polygon(boolean projectedEdges, Point... vertices) {
         if (vertices.length < 3)
             throw new IllegalArgumentException("A polygon can't have less than 3 vertices");
         this.vertices = List.of(vertices);
@@ -54,8 +75,55 @@ public class Polygon extends Geometry {
         // polygon with this plane.
         // The plane holds the invariant normal (orthogonal unit) vector to the polygon
         plane         = new Plane(vertices[0], vertices[1], vertices[2]);
-        if (size == 3) return; // no need for more tests for a Triangle
+        boundingBox   = new BoundingBox(vertices);
+        if (size > 3) // no need for more tests for a Triangle
+            checkConvex(vertices);
+        if (!projectedEdges) {
+            axisU = axisV = 0;
+            edgeNu = edgeNv = edgeOffset = null;
+            return;
+        }
+
+        // Project the polygon onto the coordinate plane where its area is the largest (dropping the
+        // dominant axis of its normal) and prepare the inward normal of each projected edge, so a
+        // point of the plane is checked against the edges with two multiplications per edge
+        Vector n = plane.getNormal();
+        double nx = Math.abs(n.getX()), ny = Math.abs(n.getY()), nz = Math.abs(n.getZ());
+        int dominant = nx >= ny && nx >= nz ? 0 : ny >= nz ? 1 : 2;
+        axisU = dominant == 0 ? 1 : 0;
+        axisV = dominant == 2 ? 1 : 2;
+
+        double[] u = new double[size], v = new double[size];
+        double area = 0;
+        for (int i = 0; i < size; ++i) {
+            u[i] = coordinate(vertices[i], axisU);
+            v[i] = coordinate(vertices[i], axisV);
+        }
+        for (int i = 0; i < size; ++i) {
+            int j = (i + 1) % size;
+            area += u[i] * v[j] - u[j] * v[i];
+        }
+        double orientation = area > 0 ? 1 : -1;
+        edgeNu = new double[size];
+        edgeNv = new double[size];
+        edgeOffset = new double[size];
+        for (int i = 0; i < size; ++i) {
+            int j = (i + 1) % size;
+            double du = u[j] - u[i], dv = v[j] - v[i];
+            double length = Math.sqrt(du * du + dv * dv);
+            edgeNu[i] = -dv * orientation / length;
+            edgeNv[i] = du * orientation / length;
+            edgeOffset[i] = edgeNu[i] * u[i] + edgeNv[i] * v[i];
+        }
+    }
 
+    /**
+     * Checks that the vertices of a polygon with more than 3 vertices are on the same plane,
+     * ordered by edge path and make a convex polygon
+     * @param vertices the vertices of the polygon
+     * @throws IllegalArgumentException if the vertices do not make a legal convex polygon
+     */
+    private void checkConvex(Point... vertices) {
         Vector  n        = plane.getNormal();
         // Subtracting any subsequent points will throw an IllegalArgumentException
         // because of Zero Vector if they are in the same point
@@ -82,6 +150,16 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * Returns a coordinate of a point
+     * @param point the point
+     * @param axis  0 for x, 1 for y and 2 for z
+     * @return the coordinate of the point on the axis
+     */
+    private static double coordinate(Point point, int axis) {
+        return axis == 0 ? point.getX() : axis == 1 ? point.getY() : point.getZ();
+    }
+
     @Override
     public Vector getNormal(Point point) { return plane.getNormal(); }
 
@@ -138,34 +216,59 @@ public class Polygon extends Geometry {
 //    }
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        double t = distance(ray);
+        return t == Double.POSITIVE_INFINITY ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+    }
 
-        List<GeoPoint> planeIntersection = this.plane.findGeoIntersections(ray);
-        if (planeIntersection == null)
-            return null;
-
-        int len = vertices.size();
-        Point p0 = ray.getHead();
-        Vector v = ray.getDirection();
-        List<Vector> vectors = new ArrayList<>(len);
-
-        // all the vectors
-        for (Point vertex : vertices) {
-            vectors.add(vertex.subtract(p0));
-        }
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        double t = distance(hit.getRay());
+        if (t >= hit.t)
+            return false;
+        hit.set(t, this);
+        return true;
+    }
 
-        int sign = 0;
-        for (int i = 0; i < len; i++) {
-            // calculate the normal using the formula in the course slides
-            Vector n = vectors.get(i).crossProduct(vectors.get((i + 1) % len)).normalize();
-            double dotProd = v.dotProduct(n);
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        double t = distance(ray);
+        if (t == Double.POSITIVE_INFINITY || t > maxDistance)
+            return ktr;
+        ktr = ktr.product(getMaterial().kT);
+        return ktr.lowerThan(minK) ? Double3.ZERO : ktr;
+    }
 
-            if (i == 0)
-                sign = dotProd > 0 ? 1 : -1;
+    /**
+     * Calculates the distance from the head of a ray to the point where it crosses the polygon
+     * @param ray the ray
+     * @return the distance to the intersection, or positive infinity if the ray doesn't cross the polygon
+     * (including a ray crossing its edges or vertices)
+     */
+    protected double distance(Ray ray) {
+        countTest();
+        double t = plane.distance(ray);
+        if (t == Double.POSITIVE_INFINITY)
+            return t;
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        return isInside(head.getX() + t * dir.getX(), head.getY() + t * dir.getY(), head.getZ() + t * dir.getZ())
+                ? t : Double.POSITIVE_INFINITY;
+    }
 
-            if (!compareSign(sign, dotProd) || isZero(dotProd))
-                return null;
-        }
-        planeIntersection.get(0).geometry = this;
-        return planeIntersection;
+    /**
+     * Checks whether a point of the plane of the polygon is inside the polygon, using the projected
+     * edges prepared by the constructor
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @param z the z coordinate of the point
+     * @return true if the point is inside the polygon (not on its edges)
+     */
+    private boolean isInside(double x, double y, double z) {
+        double u = axisU == 0 ? x : y;
+        double v = axisV == 1 ? y : z;
+        for (int i = 0; i < size; ++i)
+            if (alignZero(edgeNu[i] * u + edgeNv[i] * v - edgeOffset[i]) <= 0)
+                return false;
+        return true;
     }
 }
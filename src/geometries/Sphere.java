@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -7,6 +8,7 @@ import primitives.Vector;
 import java.util.List;
 
 import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
 
 /**
  *Represents a sphere in 3D, which is a ball floating in the space
@@ -25,6 +27,8 @@ public class Sphere extends RadialGeometry {
     public Sphere(double radius,Point center) {
         super(radius);
         this.center = center;
+        boundingBox = new BoundingBox(center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius);
     }
 
     @Override
@@ -34,6 +38,7 @@ public class Sphere extends RadialGeometry {
 
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        countTest();
         Point p0 = ray.getHead();
 
         // If the beginning point of the ray is on the sphere center, return the point
@@ -60,4 +65,66 @@ public class Sphere extends RadialGeometry {
         return t1 <= 0 ? List.of(new GeoPoint(this, ray.getPoint(t2))) // P2 only
                 : List.of(new GeoPoint(this, ray.getPoint(t1)), new GeoPoint(this, ray.getPoint(t2))); // P1 & P2
     }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        countTest();
+        Ray ray = hit.getRay();
+        Point p0 = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+
+        double t;
+        // If the beginning point of the ray is on the sphere center, the intersection is at the radius
+        if (isZero(ux) && isZero(uy) && isZero(uz))
+            t = radius;
+        else {
+            double tM = alignZero(dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz);
+            double d2 = ux * ux + uy * uy + uz * uz - tM * tM; // squared d
+            double delta2 = alignZero(radius * radius - d2);
+            if (delta2 <= 0)
+                return false;
+            double tH = Math.sqrt(delta2);
+            // the nearer intersection in front of the head
+            t = alignZero(tM - tH);
+            if (t <= 0)
+                t = alignZero(tM + tH);
+            if (t <= 0)
+                return false;
+        }
+        if (t >= hit.t)
+            return false;
+        hit.set(t, this);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        countTest();
+        Point p0 = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ux = center.getX() - p0.getX(), uy = center.getY() - p0.getY(), uz = center.getZ() - p0.getZ();
+
+        // the amount of intersections within the distance
+        int count;
+        if (isZero(ux) && isZero(uy) && isZero(uz))
+            count = radius <= maxDistance ? 1 : 0;
+        else {
+            double tM = alignZero(dir.getX() * ux + dir.getY() * uy + dir.getZ() * uz);
+            double d2 = ux * ux + uy * uy + uz * uz - tM * tM; // squared d
+            double delta2 = alignZero(radius * radius - d2);
+            if (delta2 <= 0)
+                return ktr;
+            double tH = Math.sqrt(delta2);
+            double t1 = alignZero(tM - tH), t2 = alignZero(tM + tH);
+            count = (t1 > 0 && t1 <= maxDistance ? 1 : 0) + (t2 > 0 && t2 <= maxDistance ? 1 : 0);
+        }
+        Double3 kT = getMaterial().kT;
+        for (int i = 0; i < count; ++i) {
+            ktr = ktr.product(kT);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
 }
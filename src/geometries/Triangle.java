@@ -4,8 +4,6 @@ import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
-import java.util.List;
-
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
@@ -14,6 +12,13 @@ import static primitives.Util.isZero;
  * @author Zili
  */
 public class Triangle extends Polygon {
+    /** Coordinates of the first vertex */
+    private final double p0x, p0y, p0z;
+    /** The edge from the first vertex to the second vertex */
+    private final double e1x, e1y, e1z;
+    /** The edge from the first vertex to the third vertex */
+    private final double e2x, e2y, e2z;
+
     /**
      * Constructs a new triangle according to three vertices
      *
@@ -22,40 +27,76 @@ public class Triangle extends Polygon {
      * @param p3 third vertex of the triangle
      */
     public Triangle(Point p1, Point p2, Point p3) {
-        super(p1, p2, p3);
+        // the triangle has its own intersection test, so the projected edges of the polygon are not needed
+        super(false, p1, p2, p3);
+        p0x = p1.getX();
+        p0y = p1.getY();
+        p0z = p1.getZ();
+        e1x = p2.getX() - p0x;
+        e1y = p2.getY() - p0y;
+        e1z = p2.getZ() - p0z;
+        e2x = p3.getX() - p0x;
+        e2y = p3.getY() - p0y;
+        e2z = p3.getZ() - p0z;
     }
 
     @Override
-    public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
-        List<GeoPoint> planeIntersection = this.plane.findGeoIntersections(ray);
-        if (planeIntersection == null)
-            return null;
-
-        // Check if the ray starts at one of the triangle's vertices
-        Point rayP0 = ray.getHead();
-        Vector rayDir = ray.getDirection();
-
-        // Calculate the normals of the triangle's three edges
-        Vector v1 = this.vertices.get(0).subtract(rayP0);
-        Vector v2 = this.vertices.get(1).subtract(rayP0);
-        Vector n1 = v1.crossProduct(v2).normalize();
-        double vn1 = alignZero(rayDir.dotProduct(n1));
-        if (vn1 == 0)
-            return null;
-
-        Vector v3 = this.vertices.get(2).subtract(rayP0);
-        Vector n2 = v2.crossProduct(v3).normalize();
-        double vn2 = alignZero(rayDir.dotProduct(n2));
-        if (vn1 * vn2 <= 0)
-            return null;
-
-        Vector n3 = v3.crossProduct(v1).normalize();
-        double vn3 = rayDir.dotProduct(n3);
-        if (vn1 * vn3 <= 0)
-            return null;
-
-        planeIntersection.get(0).geometry = this;
-        return planeIntersection;
+    protected double distance(Ray ray) {
+        return intersect(ray, null);
+    }
+
+    /**
+     * Finds the intersection closer than the recorded one and records it with its barycentric coordinates
+     * @param hit the hit record holding the ray and the closest intersection found so far
+     * @return true if a closer intersection was found and recorded
+     */
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        return intersect(hit.getRay(), hit) != Double.POSITIVE_INFINITY;
     }
-}
 
+    /**
+     * Calculates the distance from the head of a ray to the point where it crosses the triangle
+     * using the Möller–Trumbore algorithm - the distance and the barycentric coordinates of the
+     * point are found together from the precomputed edges, without creating any vectors
+     * @param ray the ray
+     * @param hit a hit record to record the intersection in with its barycentric coordinates, if it is
+     *            closer than the recorded one, or null
+     * @return the distance to the intersection, or positive infinity if the ray doesn't cross the triangle
+     * (including a ray crossing its edges or vertices) or the intersection is not closer than the recorded one
+     */
+    private double intersect(Ray ray, HitRecord hit) {
+        countTest();
+        Vector dir = ray.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        // the ray is parallel to the plane of the triangle
+        if (isZero(plane.getNormal().dotProduct(dir)))
+            return Double.POSITIVE_INFINITY;
+
+        // p = d x e2, det = e1 . p
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double inv = 1 / (e1x * px + e1y * py + e1z * pz);
+
+        Point head = ray.getHead();
+        double sx = head.getX() - p0x, sy = head.getY() - p0y, sz = head.getZ() - p0z;
+        double u = alignZero((sx * px + sy * py + sz * pz) * inv);
+        if (u <= 0 || u >= 1)
+            return Double.POSITIVE_INFINITY;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = alignZero((dx * qx + dy * qy + dz * qz) * inv);
+        if (v <= 0 || alignZero(1 - u - v) <= 0)
+            return Double.POSITIVE_INFINITY;
+
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        if (t <= 0)
+            return Double.POSITIVE_INFINITY;
+        if (hit != null) {
+            if (t >= hit.t)
+                return Double.POSITIVE_INFINITY;
+            hit.set(t, this, -1, u, v);
+        }
+        return t;
+    }
+}
@@ -0,0 +1,481 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Represents a mesh of triangles sharing their vertices.
+ * The vertices and the faces are kept in flat arrays of numbers instead of a Triangle object
+ * per face, so a large model takes a few dozens of bytes per face. The faces are arranged in an
+ * internal bounding volume hierarchy, kept in flat arrays as well, so a ray checks only the faces
+ * whose boxes it crosses. The whole mesh is a single body with a single material.<br/>
+ * A ray hitting a face exactly on an edge or a vertex is considered to hit it, so rays do not
+ * leak through the shared edges of neighbouring faces, and the hits of the neighbouring faces at the
+ * same distance are counted as a single crossing of the surface
+ * @author Ayala
+ */
+public class TriangleMesh extends Geometry {
+    /** Maximal amount of faces in a leaf of the hierarchy */
+    private static final int LEAF_SIZE = 4;
+    /** Size of the traversal stack - more than the depth of a hierarchy of 2^31 faces */
+    private static final int STACK_SIZE = 64;
+
+    /** The traversal buffers of each thread, reused by all the rays of the thread */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * The buffers of a traversal of the hierarchy
+     */
+    private static class Scratch {
+        /** The stack of the nodes to visit */
+        final int[] stack = new int[STACK_SIZE];
+        /** The distances where the ray enters the boxes of the nodes in the stack */
+        final double[] entries = new double[STACK_SIZE];
+        /** The faces and the distances of the hits found - two numbers per hit */
+        double[] hits = new double[16];
+        /** The barycentric coordinates of the last hit face checked, and of the closest hit found */
+        double u, v, closestU, closestV;
+    }
+
+    /** Coordinates of the vertices - x, y and z of each vertex */
+    private final double[] vertices;
+    /** Indices of the vertices of the faces - three per face, ordered by the leaves of the hierarchy */
+    private final int[] indices;
+    /** Bounds of the nodes of the hierarchy - minimal x, y, z and maximal x, y, z of each node */
+    private double[] nodeBounds;
+    /**
+     * Data of the nodes of the hierarchy - two numbers per node. For a leaf: the first face and the
+     * amount of faces. For an inner node: the index of the second child and 0 (the first child is
+     * the next node)
+     */
+    private int[] nodeData;
+    /** Amount of nodes in the hierarchy */
+    private int nodeCount = 0;
+
+    /**
+     * Constructs a mesh from its vertices and faces. The array of the vertices is kept by the mesh
+     * (without copying) and must not be changed afterwards
+     * @param vertices coordinates of the vertices - x, y and z of each vertex
+     * @param indices  indices of the vertices of the faces (counting from 0) - three per face
+     * @throws IllegalArgumentException if the arrays are empty, are not made of triples,
+     *                                  or a face refers to a vertex that does not exist
+     */
+    public TriangleMesh(double[] vertices, int[] indices) {
+        if (vertices.length == 0 || vertices.length % 3 != 0)
+            throw new IllegalArgumentException("Mesh vertices must be a non-empty array of coordinate triples");
+        if (indices.length == 0 || indices.length % 3 != 0)
+            throw new IllegalArgumentException("Mesh faces must be a non-empty array of vertex index triples");
+        int vertexCount = vertices.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Mesh face refers to a missing vertex " + index);
+
+        this.vertices = vertices;
+        this.indices = indices.clone();
+        buildHierarchy();
+        boundingBox = new BoundingBox(nodeBounds[0], nodeBounds[1], nodeBounds[2],
+                nodeBounds[3], nodeBounds[4], nodeBounds[5]);
+    }
+
+    /**
+     * Returns the amount of vertices of the mesh
+     * @return the amount of vertices
+     */
+    public final int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns the amount of faces of the mesh
+     * @return the amount of faces
+     */
+    public final int getFaceCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Returns the normal of a face of the mesh, according to the order of its vertices
+     * (the cross product of the edges from its first vertex)
+     * @param face the index of the face
+     * @return the normal of the face
+     */
+    private Vector getFaceNormal(int face) {
+        int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+        return new Vector(e1y * e2z - e1z * e2y, e1z * e2x - e1x * e2z, e1x * e2y - e1y * e2x).normalize();
+    }
+
+    @Override
+    Vector getNormal(Point point, int face) {
+        return face < 0 ? getNormal(point) : getFaceNormal(face);
+    }
+
+    /**
+     * Returns the normal of the face nearest to a given point. The normal is found by checking all
+     * the faces, so the intersection routines provide the normal of the intersected face directly
+     * @param point the point where the normal is required
+     * @return the normal of the nearest face
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        double px = point.getX(), py = point.getY(), pz = point.getZ();
+        int nearest = 0;
+        double nearestPlaneDistance = Double.POSITIVE_INFINITY, nearestCentroidDistance = Double.POSITIVE_INFINITY;
+        for (int face = 0; face < getFaceCount(); ++face) {
+            int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+            double cx = (vertices[a] + vertices[b] + vertices[c]) / 3 - px;
+            double cy = (vertices[a + 1] + vertices[b + 1] + vertices[c + 1]) / 3 - py;
+            double cz = (vertices[a + 2] + vertices[b + 2] + vertices[c + 2]) / 3 - pz;
+            Vector normal;
+            try {
+                normal = getFaceNormal(face);
+            } catch (IllegalArgumentException degenerateFace) {
+                continue;
+            }
+            //the face whose plane is the nearest, and between faces on the same plane - the one whose
+            //centroid is the nearest
+            double planeDistance = Math.abs(cx * normal.getX() + cy * normal.getY() + cz * normal.getZ());
+            double centroidDistance = cx * cx + cy * cy + cz * cz;
+            if (isZero(planeDistance - nearestPlaneDistance) ? centroidDistance < nearestCentroidDistance
+                    : planeDistance < nearestPlaneDistance) {
+                nearestPlaneDistance = planeDistance;
+                nearestCentroidDistance = centroidDistance;
+                nearest = face;
+            }
+        }
+        return getFaceNormal(nearest);
+    }
+
+    // ================= hierarchy construction =================
+
+    /**
+     * Builds the bounding volume hierarchy over the faces and reorders the faces by its leaves
+     */
+    private void buildHierarchy() {
+        int faces = getFaceCount();
+        double[] centroids = new double[3 * faces];
+        for (int face = 0; face < faces; ++face)
+            for (int axis = 0; axis < 3; ++axis)
+                centroids[3 * face + axis] = (vertices[3 * indices[3 * face] + axis]
+                        + vertices[3 * indices[3 * face + 1] + axis]
+                        + vertices[3 * indices[3 * face + 2] + axis]) / 3;
+        int[] order = new int[faces];
+        for (int face = 0; face < faces; ++face)
+            order[face] = face;
+
+        int maxNodes = 2 * faces - 1;
+        nodeBounds = new double[6 * maxNodes];
+        nodeData = new int[2 * maxNodes];
+        buildNode(nodeCount++, order, centroids, 0, faces);
+        nodeBounds = Arrays.copyOf(nodeBounds, 6 * nodeCount);
+        nodeData = Arrays.copyOf(nodeData, 2 * nodeCount);
+
+        int[] original = indices.clone();
+        for (int i = 0; i < faces; ++i)
+            System.arraycopy(original, 3 * order[i], indices, 3 * i, 3);
+    }
+
+    /**
+     * Builds a node of the hierarchy over a range of faces, splitting the range at the median of the
+     * centroids on the longest axis of their bounds
+     * @param node      the index of the node
+     * @param order     the faces, ordered by the leaves of the hierarchy
+     * @param centroids the centroids of the faces
+     * @param start     the first face of the node in the order
+     * @param end       the face after the last face of the node in the order
+     */
+    private void buildNode(int node, int[] order, double[] centroids, int start, int end) {
+        double[] bounds = { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        double[] centroidBounds = bounds.clone();
+        for (int i = start; i < end; ++i) {
+            int face = order[i];
+            for (int axis = 0; axis < 3; ++axis) {
+                for (int corner = 0; corner < 3; ++corner) {
+                    double coordinate = vertices[3 * indices[3 * face + corner] + axis];
+                    bounds[axis] = Math.min(bounds[axis], coordinate);
+                    bounds[axis + 3] = Math.max(bounds[axis + 3], coordinate);
+                }
+                double centroid = centroids[3 * face + axis];
+                centroidBounds[axis] = Math.min(centroidBounds[axis], centroid);
+                centroidBounds[axis + 3] = Math.max(centroidBounds[axis + 3], centroid);
+            }
+        }
+        System.arraycopy(bounds, 0, nodeBounds, 6 * node, 6);
+
+        int axis = 0;
+        for (int a = 1; a < 3; ++a)
+            if (centroidBounds[a + 3] - centroidBounds[a] > centroidBounds[axis + 3] - centroidBounds[axis])
+                axis = a;
+        //a small node, or a node whose faces cannot be separated, is a leaf
+        if (end - start <= LEAF_SIZE || centroidBounds[axis + 3] == centroidBounds[axis]) {
+            nodeData[2 * node] = start;
+            nodeData[2 * node + 1] = end - start;
+            return;
+        }
+
+        int middle = (start + end) >>> 1;
+        select(order, centroids, axis, start, end - 1, middle);
+        buildNode(nodeCount++, order, centroids, start, middle);
+        int second = nodeCount++;
+        nodeData[2 * node] = second;
+        nodeData[2 * node + 1] = 0;
+        buildNode(second, order, centroids, middle, end);
+    }
+
+    /**
+     * Partially sorts a range of faces by their centroids on an axis (quick select), so the face
+     * at a given position is in its sorted place, the faces before it are not greater and the faces
+     * after it are not smaller
+     * @param order     the faces
+     * @param centroids the centroids of the faces
+     * @param axis      the axis of the centroids (0 for x, 1 for y and 2 for z)
+     * @param left      the first position of the range
+     * @param right     the last position of the range (inclusive)
+     * @param k         the position to put in place
+     */
+    private static void select(int[] order, double[] centroids, int axis, int left, int right, int k) {
+        while (left < right) {
+            double pivot = centroids[3 * order[(left + right) >>> 1] + axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (centroids[3 * order[i] + axis] < pivot) ++i;
+                while (centroids[3 * order[j] + axis] > pivot) --j;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    // ================= intersections =================
+
+    /**
+     * Calculates the distance from the head of a ray to a face it hits (Möller–Trumbore algorithm)
+     * @param scratch the buffers of the traversal, whose barycentric coordinates are set to the
+     *                coordinates of the hit point on the face
+     * @param face the index of the face
+     * @param ox   x of the head of the ray
+     * @param oy   y of the head of the ray
+     * @param oz   z of the head of the ray
+     * @param dx   x of the direction of the ray
+     * @param dy   y of the direction of the ray
+     * @param dz   z of the direction of the ray
+     * @return the distance to the hit point, or positive infinity if the ray misses the face
+     */
+    private double faceDistance(Scratch scratch, int face, double ox, double oy, double oz, double dx, double dy, double dz) {
+        int a = 3 * indices[3 * face], b = 3 * indices[3 * face + 1], c = 3 * indices[3 * face + 2];
+        double e1x = vertices[b] - vertices[a], e1y = vertices[b + 1] - vertices[a + 1], e1z = vertices[b + 2] - vertices[a + 2];
+        double e2x = vertices[c] - vertices[a], e2y = vertices[c + 1] - vertices[a + 1], e2z = vertices[c + 2] - vertices[a + 2];
+        // p = d x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        if (isZero(det)) // the ray is parallel to the face (or the face is degenerate)
+            return Double.POSITIVE_INFINITY;
+        double inv = 1 / det;
+        double sx = ox - vertices[a], sy = oy - vertices[a + 1], sz = oz - vertices[a + 2];
+        double u = (sx * px + sy * py + sz * pz) * inv;
+        if (u < 0 || u > 1)
+            return Double.POSITIVE_INFINITY;
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inv;
+        if (v < 0 || u + v > 1)
+            return Double.POSITIVE_INFINITY;
+        double t = alignZero((e2x * qx + e2y * qy + e2z * qz) * inv);
+        scratch.u = u;
+        scratch.v = v;
+        return t > 0 ? t : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Calculates the distance from the head of a ray to the point where it enters the box of a node
+     * (slab method)
+     * @param node   the index of the node
+     * @param ox     x of the head of the ray
+     * @param oy     y of the head of the ray
+     * @param oz     z of the head of the ray
+     * @param ix     inverse of x of the direction of the ray
+     * @param iy     inverse of y of the direction of the ray
+     * @param iz     inverse of z of the direction of the ray
+     * @param maxT   the maximal distance
+     * @return the distance to the entry point (0 if the head is inside the box), or positive infinity
+     * if the ray does not cross the box within the maximal distance
+     */
+    private double boxDistance(int node, double ox, double oy, double oz,
+                               double ix, double iy, double iz, double maxT) {
+        int b = 6 * node;
+        double tMin = 0, tMax = maxT;
+        double t0 = (nodeBounds[b] - ox) * ix, t1 = (nodeBounds[b + 3] - ox) * ix;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+        t0 = (nodeBounds[b + 1] - oy) * iy;
+        t1 = (nodeBounds[b + 4] - oy) * iy;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        if (tMin > tMax) return Double.POSITIVE_INFINITY;
+        t0 = (nodeBounds[b + 2] - oz) * iz;
+        t1 = (nodeBounds[b + 5] - oz) * iz;
+        if (t0 > t1) { double tmp = t0; t0 = t1; t1 = tmp; }
+        if (t0 > tMin) tMin = t0;
+        if (t1 < tMax) tMax = t1;
+        return tMin <= tMax ? tMin : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Finds the faces hit by a ray closer than a given distance. Hits of several faces at the same
+     * distance (a ray crossing a shared edge or vertex) are a single crossing and are found once
+     * @param ray         the ray
+     * @param maxDistance the maximal distance of the hits
+     * @param closest     true to find only the closest hit (and skip the nodes whose boxes begin
+     *                    behind it, even if they were pushed before it was found), false to find all the hits
+     * @param limit       the maximal amount of hits to find (the search stops when it is reached)
+     * @param scratch     the buffers of the traversal, whose hits are filled with the face and the
+     *                    distance of each hit found (only of the closest hit if the closest is required,
+     *                    with its barycentric coordinates)
+     * @return the amount of hits found
+     */
+    private int traverse(Ray ray, double maxDistance, boolean closest, int limit, Scratch scratch) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double ix = 1 / dx, iy = 1 / dy, iz = 1 / dz;
+
+        double best = maxDistance;
+        int count = 0;
+        int[] stack = scratch.stack;
+        double[] entries = scratch.entries;
+        double[] hits = scratch.hits;
+        int top = 0;
+        double rootDistance = boxDistance(0, ox, oy, oz, ix, iy, iz, best);
+        if (rootDistance != Double.POSITIVE_INFINITY) {
+            entries[top] = rootDistance;
+            stack[top++] = 0;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            //the box of the node begins behind the closest hit found since the node was pushed
+            if (closest && entries[top] >= best)
+                continue;
+            int first = nodeData[2 * node], faces = nodeData[2 * node + 1];
+            if (faces > 0) { // a leaf
+                for (int face = first; face < first + faces; ++face) {
+                    countTest();
+                    double t = faceDistance(scratch, face, ox, oy, oz, dx, dy, dz);
+                    if (t == Double.POSITIVE_INFINITY || (closest ? t >= best : t > best))
+                        continue;
+                    if (closest) {
+                        best = t;
+                        hits[0] = face;
+                        hits[1] = t;
+                        scratch.closestU = scratch.u;
+                        scratch.closestV = scratch.v;
+                        count = 1;
+                        continue;
+                    }
+                    if (isCrossed(hits, count, t))
+                        continue;
+                    if (2 * count == hits.length)
+                        scratch.hits = hits = Arrays.copyOf(hits, 2 * hits.length);
+                    hits[2 * count] = face;
+                    hits[2 * count + 1] = t;
+                    if (++count == limit)
+                        return count;
+                }
+                continue;
+            }
+            //the nearer child is pushed last, so it is visited first
+            int near = node + 1, far = first;
+            double nearDistance = boxDistance(near, ox, oy, oz, ix, iy, iz, best);
+            double farDistance = boxDistance(far, ox, oy, oz, ix, iy, iz, best);
+            if (farDistance < nearDistance) {
+                int tmp = near; near = far; far = tmp;
+                double tmpDistance = nearDistance; nearDistance = farDistance; farDistance = tmpDistance;
+            }
+            if (farDistance != Double.POSITIVE_INFINITY) {
+                entries[top] = farDistance;
+                stack[top++] = far;
+            }
+            if (nearDistance != Double.POSITIVE_INFINITY) {
+                entries[top] = nearDistance;
+                stack[top++] = near;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the surface was already found to be crossed at a given distance by a hit of
+     * a neighbouring face
+     * @param hits  the faces and the distances of the hits found
+     * @param count the amount of hits found
+     * @param t     the distance
+     * @return true if a hit at the same distance was found
+     */
+    private static boolean isCrossed(double[] hits, int count, double t) {
+        for (int i = 1; i < 2 * count; i += 2)
+            if (isZero(hits[i] - t))
+                return true;
+        return false;
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        Scratch scratch = SCRATCH.get();
+        int count = traverse(ray, Double.POSITIVE_INFINITY, false, Integer.MAX_VALUE, scratch);
+        if (count == 0)
+            return null;
+        double[] hits = scratch.hits;
+        List<GeoPoint> intersections = new LinkedList<>();
+        for (int i = 0; i < 2 * count; i += 2) {
+            GeoPoint gp = new GeoPoint(this, ray.getPoint(hits[i + 1]));
+            gp.normal = getFaceNormal((int) hits[i]);
+            intersections.add(gp);
+        }
+        return intersections;
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        Scratch scratch = SCRATCH.get();
+        if (traverse(hit.getRay(), hit.t, true, Integer.MAX_VALUE, scratch) == 0)
+            return false;
+        hit.set(scratch.hits[1], this, (int) scratch.hits[0], scratch.closestU, scratch.closestV);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Double3 kT = getMaterial().kT;
+        //an opaque mesh blocks the ray at its first hit, otherwise each hit face lets through kT of the light
+        boolean opaque = kT.lowerThan(minK);
+        int hits = traverse(ray, maxDistance, false, opaque ? 1 : Integer.MAX_VALUE, SCRATCH.get());
+        if (hits > 0 && opaque)
+            return Double3.ZERO;
+        for (int i = 0; i < hits; ++i) {
+            ktr = ktr.product(kT);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+}
@@ -1,5 +1,6 @@
 package geometries;
 
+import primitives.Double3;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -39,6 +40,7 @@ public class Tube extends RadialGeometry{
     //BONUS
     @Override
     public List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        countTest();
         Vector dir = ray.getDirection();
         Vector v = axis.getDirection();
         double dirV = dir.dotProduct(v);
@@ -95,4 +97,68 @@ public class Tube extends RadialGeometry{
         }
         return null;
     }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        countTest();
+        double t = distance(hit.getRay(), 0);
+        if (t >= hit.t)
+            return false;
+        hit.set(t, this);
+        return true;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        countTest();
+        for (double t = distance(ray, 0); t != Double.POSITIVE_INFINITY && t <= maxDistance; t = distance(ray, t)) {
+            ktr = ktr.product(getMaterial().kT);
+            if (ktr.lowerThan(minK))
+                return Double3.ZERO;
+        }
+        return ktr;
+    }
+
+    /**
+     * Calculates the distance from the head of a ray to the nearest point where it crosses the tube after
+     * a given distance, solving the tube equation without creating any vectors. Rays touching the tube
+     * are not considered as crossing it
+     * @param ray   the ray
+     * @param after the distance that the intersection must be after (0 for the nearest intersection)
+     * @return the distance to the intersection, or positive infinity if there is no intersection after the distance
+     */
+    private double distance(Ray ray, double after) {
+        Point head = ray.getHead();
+        Vector dir = ray.getDirection();
+        Point base = axis.getHead();
+        Vector v = axis.getDirection();
+        double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+        double px = head.getX() - base.getX(), py = head.getY() - base.getY(), pz = head.getZ() - base.getZ();
+
+        double dirV = dx * v.getX() + dy * v.getY() + dz * v.getZ();
+        double pV = px * v.getX() + py * v.getY() + pz * v.getZ();
+        double a = 1 - dirV * dirV;
+        double b = 2 * (dx * px + dy * py + dz * pz - dirV * pV);
+        double c = px * px + py * py + pz * pz - pV * pV - radius * radius;
+
+        if (isZero(a)) { // the ray is parallel to the axis - a linear equation, if any
+            if (isZero(b))
+                return Double.POSITIVE_INFINITY;
+            double t = alignZero(-c / b);
+            return t > 0 && alignZero(t - after) > 0 ? t : Double.POSITIVE_INFINITY;
+        }
+        double discriminant = alignZero(b * b - 4 * a * c);
+        if (discriminant <= 0)
+            return Double.POSITIVE_INFINITY;
+        double sqrt = Math.sqrt(discriminant);
+        double t1 = alignZero(-(b + sqrt) / (2 * a)), t2 = alignZero(-(b - sqrt) / (2 * a));
+        if (t1 > t2) {
+            double tmp = t1;
+            t1 = t2;
+            t2 = tmp;
+        }
+        if (t1 > 0 && alignZero(t1 - after) > 0)
+            return t1;
+        return t2 > 0 && alignZero(t2 - after) > 0 ? t2 : Double.POSITIVE_INFINITY;
+    }
 }
@@ -0,0 +1,366 @@
+package geometries;
+
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Uniform grid spatial index over a list of bounded bodies - an alternative to the bounding volume
+ * hierarchy for scenes of many bodies of similar sizes (like particles or clusters of spheres).
+ * The box of the bodies is divided into equal cells, the resolution is chosen automatically from the
+ * amount of bodies and the shape of the box, and each cell keeps the bodies whose boxes overlap it.
+ * The grid is built in two linear passes over the bodies into flat arrays, so it is much cheaper to
+ * build than a tree, and a ray walks only through the cells it crosses, from the nearest to the
+ * farthest (3D-DDA). A body overlapping a few cells is checked only once per ray
+ * @author Zili
+ */
+public class UniformGrid extends Intersectable {
+    /** Amount of cells per body in the automatic resolution */
+    private static final double DENSITY = 2;
+    /** Maximal amount of cells along an axis */
+    private static final int MAX_RESOLUTION = 256;
+    /** Margin (relative to a cell size) added to the boxes of the bodies when they are placed in cells */
+    private static final double MARGIN = 1e-6;
+
+    /** The bodies of the grid */
+    private final Intersectable[] bodies;
+    /** Amount of cells along each axis */
+    private final int nx, ny, nz;
+    /** Minimal coordinates of the grid */
+    private final double x0, y0, z0;
+    /** Sizes of a cell along each axis */
+    private final double cx, cy, cz;
+    /** Index of the first body of each cell in {@link #cellBodies}, with the end of the last cell at the end */
+    private final int[] cellStart;
+    /** Indices of the bodies of the cells, cell after cell */
+    private final int[] cellBodies;
+    /** Build time in milliseconds */
+    private final double buildTime;
+
+    /** Marks of the bodies checked by the current ray of each thread */
+    private final ThreadLocal<Mailbox> mailboxes;
+
+    /**
+     * Marks of the bodies already checked by a ray, so that a body overlapping a few cells is checked once.
+     * Each thread has its own marks, and the marks of a ray are its serial number in the thread
+     */
+    private static class Mailbox {
+        /** The number of the last ray that checked each body */
+        final int[] marks;
+        /** The number of the current ray */
+        int ray = 0;
+
+        /**
+         * Constructs empty marks
+         * @param size the amount of the bodies
+         */
+        Mailbox(int size) {
+            marks = new int[size];
+        }
+
+        /**
+         * Starts marking the bodies for a new ray
+         * @return the marks
+         */
+        Mailbox start() {
+            if (++ray == 0) { // all the numbers were used - start over
+                Arrays.fill(marks, 0);
+                ray = 1;
+            }
+            return this;
+        }
+
+        /**
+         * Marks a body as checked by the current ray
+         * @param body the index of the body
+         * @return true if the body was not checked by the current ray yet
+         */
+        boolean visit(int body) {
+            if (marks[body] == ray)
+                return false;
+            marks[body] = ray;
+            return true;
+        }
+    }
+
+    /**
+     * Builds a grid over a list of bounded bodies
+     * @param bodies the bodies, all of them must have a bounding box
+     * @throws IllegalArgumentException if the list is empty
+     */
+    public UniformGrid(List<Intersectable> bodies) {
+        if (bodies.isEmpty())
+            throw new IllegalArgumentException("A grid must have at least one body");
+        long start = System.nanoTime();
+        this.bodies = bodies.toArray(new Intersectable[0]);
+        int n = this.bodies.length;
+
+        BoundingBox box = this.bodies[0].getBoundingBox();
+        for (Intersectable body : this.bodies)
+            box = box.union(body.getBoundingBox());
+        boundingBox = box;
+        x0 = box.minX;
+        y0 = box.minY;
+        z0 = box.minZ;
+
+        // the resolution - about DENSITY cells per body, in cubes as far as the shape of the box allows
+        double dx = box.maxX - box.minX, dy = box.maxY - box.minY, dz = box.maxZ - box.minZ;
+        double flat = Math.max(Math.max(dx, dy), dz) * 1e-3;
+        if (flat == 0) flat = 1;
+        double volume = Math.max(dx, flat) * Math.max(dy, flat) * Math.max(dz, flat);
+        double cellsPerUnit = Math.cbrt(DENSITY * n / volume);
+        nx = resolution(dx, cellsPerUnit);
+        ny = resolution(dy, cellsPerUnit);
+        nz = resolution(dz, cellsPerUnit);
+        cx = dx / nx;
+        cy = dy / ny;
+        cz = dz / nz;
+
+        // first pass - count the bodies of each cell, second pass - place them
+        int cells = nx * ny * nz;
+        cellStart = new int[cells + 1];
+        int[] range = new int[6];
+        for (Intersectable body : this.bodies) {
+            cellRange(body.getBoundingBox(), range);
+            for (int k = range[2]; k <= range[5]; ++k)
+                for (int j = range[1]; j <= range[4]; ++j)
+                    for (int i = range[0]; i <= range[3]; ++i)
+                        ++cellStart[cell(i, j, k) + 1];
+        }
+        for (int c = 0; c < cells; ++c)
+            cellStart[c + 1] += cellStart[c];
+        cellBodies = new int[cellStart[cells]];
+        int[] fill = Arrays.copyOf(cellStart, cells);
+        for (int b = 0; b < n; ++b) {
+            cellRange(this.bodies[b].getBoundingBox(), range);
+            for (int k = range[2]; k <= range[5]; ++k)
+                for (int j = range[1]; j <= range[4]; ++j)
+                    for (int i = range[0]; i <= range[3]; ++i)
+                        cellBodies[fill[cell(i, j, k)]++] = b;
+        }
+
+        mailboxes = ThreadLocal.withInitial(() -> new Mailbox(n));
+        buildTime = (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Chooses the amount of cells along an axis
+     * @param size         the size of the grid along the axis
+     * @param cellsPerUnit the amount of cells per a unit of length
+     * @return the amount of cells, between 1 and {@link #MAX_RESOLUTION}
+     */
+    private static int resolution(double size, double cellsPerUnit) {
+        return (int) Math.max(1, Math.min(MAX_RESOLUTION, Math.round(size * cellsPerUnit)));
+    }
+
+    /**
+     * Calculates the index of a cell in the flat arrays of the cells
+     * @param i the cell along the x axis
+     * @param j the cell along the y axis
+     * @param k the cell along the z axis
+     * @return the index of the cell
+     */
+    private int cell(int i, int j, int k) {
+        return (k * ny + j) * nx + i;
+    }
+
+    /**
+     * Calculates the cell along an axis which contains a coordinate
+     * @param value the coordinate
+     * @param min   the minimal coordinate of the grid along the axis
+     * @param size  the size of a cell along the axis
+     * @param count the amount of cells along the axis
+     * @return the cell, clamped into the grid
+     */
+    private static int cellOf(double value, double min, double size, int count) {
+        if (size == 0)
+            return 0;
+        int c = (int) Math.floor((value - min) / size);
+        return c < 0 ? 0 : c >= count ? count - 1 : c;
+    }
+
+    /**
+     * Calculates the range of cells overlapping a box (with a small margin)
+     * @param box   the box
+     * @param range filled with the first cell along x, y, z and the last cell along x, y, z
+     */
+    private void cellRange(BoundingBox box, int[] range) {
+        range[0] = cellOf(box.minX - MARGIN * cx, x0, cx, nx);
+        range[1] = cellOf(box.minY - MARGIN * cy, y0, cy, ny);
+        range[2] = cellOf(box.minZ - MARGIN * cz, z0, cz, nz);
+        range[3] = cellOf(box.maxX + MARGIN * cx, x0, cx, nx);
+        range[4] = cellOf(box.maxY + MARGIN * cy, y0, cy, ny);
+        range[5] = cellOf(box.maxZ + MARGIN * cz, z0, cz, nz);
+    }
+
+    /**
+     * Returns the amount of cells along an axis
+     * @param axis 0 for x, 1 for y and 2 for z
+     * @return the amount of cells
+     */
+    public int getResolution(int axis) {
+        return axis == 0 ? nx : axis == 1 ? ny : nz;
+    }
+
+    /**
+     * Returns the bodies of the grid
+     * @return an unmodifiable list of the bodies
+     */
+    List<Intersectable> getBodies() {
+        return List.of(bodies);
+    }
+
+    /**
+     * A walk of a ray through the cells of the grid, from the nearest cell to the farthest (3D-DDA).
+     * After each call to {@link #next()} the walk is on a cell whose bodies are from {@link #from} to
+     * {@link #to} in {@link #cellBodies}, and the ray leaves the cell at the distance {@link #exit}
+     */
+    private class Walk {
+        /** The current cell along each axis */
+        private int i, j, k;
+        /** The step to the next cell along each axis */
+        private final int stepI, stepJ, stepK;
+        /** The distances at which the ray crosses the next cell boundary along each axis */
+        private double tI, tJ, tK;
+        /** The distances between the cell boundaries along each axis */
+        private final double deltaI, deltaJ, deltaK;
+        /** The maximal distance from the ray's head */
+        private final double maxDistance;
+        /** True until the walk reaches its first cell */
+        private boolean first = true;
+        /** False when the walk has left the grid or the maximal distance */
+        private boolean inside;
+        /** The range of the bodies of the current cell */
+        int from, to;
+        /** The distance at which the ray leaves the current cell */
+        double exit;
+
+        /**
+         * Starts a walk of a ray
+         * @param ray         the ray
+         * @param maxDistance the maximal distance from the ray's head
+         */
+        Walk(Ray ray, double maxDistance) {
+            this.maxDistance = maxDistance;
+            double entry = boundingBox.distance(ray, maxDistance);
+            inside = entry != Double.POSITIVE_INFINITY;
+            Point head = ray.getHead();
+            Vector dir = ray.getDirection();
+            double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+            double dx = dir.getX(), dy = dir.getY(), dz = dir.getZ();
+            double invX = ray.getInverseX(), invY = ray.getInverseY(), invZ = ray.getInverseZ();
+
+            i = cellOf(ox + entry * dx, x0, cx, nx);
+            j = cellOf(oy + entry * dy, y0, cy, ny);
+            k = cellOf(oz + entry * dz, z0, cz, nz);
+            stepI = dx > 0 ? 1 : -1;
+            stepJ = dy > 0 ? 1 : -1;
+            stepK = dz > 0 ? 1 : -1;
+            tI = dx == 0 ? Double.POSITIVE_INFINITY : (x0 + (i + (dx > 0 ? 1 : 0)) * cx - ox) * invX;
+            tJ = dy == 0 ? Double.POSITIVE_INFINITY : (y0 + (j + (dy > 0 ? 1 : 0)) * cy - oy) * invY;
+            tK = dz == 0 ? Double.POSITIVE_INFINITY : (z0 + (k + (dz > 0 ? 1 : 0)) * cz - oz) * invZ;
+            deltaI = dx == 0 ? Double.POSITIVE_INFINITY : cx * Math.abs(invX);
+            deltaJ = dy == 0 ? Double.POSITIVE_INFINITY : cy * Math.abs(invY);
+            deltaK = dz == 0 ? Double.POSITIVE_INFINITY : cz * Math.abs(invZ);
+        }
+
+        /**
+         * Moves to the next cell crossed by the ray
+         * @return false if the ray has left the grid or the maximal distance
+         */
+        boolean next() {
+            if (!inside)
+                return false;
+            if (!first) {
+                // step over the nearest cell boundary
+                if (exit > maxDistance)
+                    return inside = false;
+                if (tI <= tJ && tI <= tK) {
+                    i += stepI;
+                    tI += deltaI;
+                    if (i < 0 || i >= nx) return inside = false;
+                } else if (tJ <= tK) {
+                    j += stepJ;
+                    tJ += deltaJ;
+                    if (j < 0 || j >= ny) return inside = false;
+                } else {
+                    k += stepK;
+                    tK += deltaK;
+                    if (k < 0 || k >= nz) return inside = false;
+                }
+            }
+            first = false;
+            int c = cell(i, j, k);
+            from = cellStart[c];
+            to = cellStart[c + 1];
+            exit = Math.min(tI, Math.min(tJ, tK));
+            return true;
+        }
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray) {
+        List<GeoPoint> intersections = null;
+        Mailbox mailbox = mailboxes.get().start();
+        Walk walk = new Walk(ray, Double.POSITIVE_INFINITY);
+        while (walk.next())
+            for (int c = walk.from; c < walk.to; ++c) {
+                int b = cellBodies[c];
+                if (!mailbox.visit(b))
+                    continue;
+                List<GeoPoint> points = bodies[b].findGeoIntersectionsHelper(ray);
+                if (points != null) {
+                    if (intersections == null)
+                        intersections = new LinkedList<>();
+                    intersections.addAll(points);
+                }
+            }
+        return intersections;
+    }
+
+    @Override
+    protected boolean findClosestHitHelper(HitRecord hit) {
+        boolean found = false;
+        Mailbox mailbox = mailboxes.get().start();
+        Walk walk = new Walk(hit.getRay(), hit.t);
+        while (walk.next()) {
+            for (int c = walk.from; c < walk.to; ++c) {
+                int b = cellBodies[c];
+                if (mailbox.visit(b))
+                    found = bodies[b].findClosestHitHelper(hit) || found;
+            }
+            // the cells ahead are farther than an intersection found inside this cell
+            if (hit.t <= walk.exit)
+                break;
+        }
+        return found;
+    }
+
+    @Override
+    protected Double3 findTransparencyHelper(Ray ray, double maxDistance, Double3 ktr, double minK) {
+        Mailbox mailbox = mailboxes.get().start();
+        Walk walk = new Walk(ray, maxDistance);
+        while (walk.next())
+            for (int c = walk.from; c < walk.to; ++c) {
+                int b = cellBodies[c];
+                if (!mailbox.visit(b))
+                    continue;
+                ktr = bodies[b].findTransparencyHelper(ray, maxDistance, ktr, minK);
+                if (ktr.lowerThan(minK))
+                    return Double3.ZERO;
+            }
+        return ktr;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Grid %dx%dx%d: %d bodies, %d cells, %d references (%.2f per body), built in %.1f ms",
+                nx, ny, nz, bodies.length, nx * ny * nz, cellBodies.length,
+                (double) cellBodies.length / bodies.length, buildTime);
+    }
+}
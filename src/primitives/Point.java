@@ -1,14 +1,17 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * The class represents a point in 3-dimensional space
  * @author Zili
  */
 public class Point {
     /**
-     * 3-dimensional coordinates of this point.
+     * 3-dimensional coordinates of this point, kept as plain fields so the arithmetic
+     * reads them directly and creates only the object of its result
      */
-    protected  Double3 xyz;
+    protected final double x, y, z;
 
     /**
      * Constructs a new point according to 3 doubles
@@ -16,13 +19,11 @@ public class Point {
      * @param y second coordinate of the point
      * @param z third coordinate of the point
      */
-    public Point(double x, double y, double z) {xyz=new Double3(x,y,z);}
-
-    /**
-     * Constructs a new point according to another point
-     * @param xyz a 3-dimensional point
-     */
-    Point(Double3 xyz) {this.xyz=xyz;}
+    public Point(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+    }
 
     public final static Point ZERO=new Point(0, 0, 0);
 
@@ -30,29 +31,40 @@ public class Point {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         return (obj instanceof Point other)
-            && this.xyz.equals(other.xyz);
+            && isZero(x - other.x) && isZero(y - other.y) && isZero(z - other.z);
     }
 
     @Override
-    public String toString() {return " "+xyz;}
+    public String toString() {return " ("+x+","+y+","+z+")";}
 
-    public double getX() { return this.xyz.d1; }
-    public double getY() { return this.xyz.d2; }
-    public double getZ() { return this.xyz.d3; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public double getZ() { return z; }
 
     /**
      * Returns a new vector from a given point to the current point by subtracting the two points
      * @param other a point that will be the head of the new vector
      * @return a new vector from a given point to the current point
      */
-    public Vector subtract(Point other) {return new Vector(xyz.subtract(other.xyz));}
+    public Vector subtract(Point other) {return new Vector(x - other.x, y - other.y, z - other.z);}
 
     /**
      * Returns a new point after adding the given vector to the current point
      * @param vec a vector to add to the current point
      * @return a new point after adding the given vector to the current point
      */
-    public Point add(Vector vec) {return new Point(xyz.add(vec.xyz));}
+    public Point add(Vector vec) {return new Point(x + vec.x, y + vec.y, z + vec.z);}
+
+    /**
+     * Returns a new point after moving the current point along a given vector by a given scale,
+     * without creating the scaled vector (so the scale may also be zero)
+     * @param vec   the direction to move the point along
+     * @param scale the scale of the vector
+     * @return a new point - the current point plus the vector multiplied by the scale
+     */
+    public Point add(Vector vec, double scale) {
+        return new Point(x + vec.x * scale, y + vec.y * scale, z + vec.z * scale);
+    }
 
     /**
      * Returns the squared distance between the current point to a given point
@@ -60,8 +72,8 @@ public class Point {
      * @return the squared distance between the current point to a given point
      */
     public double distanceSquared(Point p) {
-        return (this.xyz.d1 - p.xyz.d1) * (this.xyz.d1 - p.xyz.d1) + (this.xyz.d2 - p.xyz.d2) * (this.xyz.d2 - p.xyz.d2)
-                + (this.xyz.d3 - p.xyz.d3) * (this.xyz.d3 - p.xyz.d3);
+        double dx = x - p.x, dy = y - p.y, dz = z - p.z;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     /**
@@ -18,6 +18,8 @@ public class Ray {
     private final Point head;
     /**The direction of the ray*/
     private final Vector direction;
+    /**The reciprocals of the direction coordinates, for the slab tests of bounding boxes*/
+    private final double inverseX, inverseY, inverseZ;
 
     private static final double DELTA = 0.1;
 
@@ -28,6 +30,30 @@ public class Ray {
         return direction;
     }
 
+    /**
+     * Returns the reciprocal of the x coordinate of the direction (infinite if the coordinate is zero)
+     * @return 1 / x of the direction
+     */
+    public double getInverseX() {
+        return inverseX;
+    }
+
+    /**
+     * Returns the reciprocal of the y coordinate of the direction (infinite if the coordinate is zero)
+     * @return 1 / y of the direction
+     */
+    public double getInverseY() {
+        return inverseY;
+    }
+
+    /**
+     * Returns the reciprocal of the z coordinate of the direction (infinite if the coordinate is zero)
+     * @return 1 / z of the direction
+     */
+    public double getInverseZ() {
+        return inverseZ;
+    }
+
     /**
      * Constructs a ray according to a given starting point a vector for the direction
      * @param head the starting point of the ray
@@ -36,6 +62,9 @@ public class Ray {
     public Ray(Point head, Vector direction) {
         this.head = head;
         this.direction = direction.normalize();
+        inverseX = 1 / this.direction.getX();
+        inverseY = 1 / this.direction.getY();
+        inverseZ = 1 / this.direction.getZ();
     }
 
     /**
@@ -46,9 +75,11 @@ public class Ray {
      */
     public Ray(Point head, Vector direction, Vector normal) {
         //keep Don't Repeat Yourself principal
-        Vector delta = normal.scale(normal.dotProduct(direction) > 0 ? DELTA : -DELTA);
-        this.head = head.add(delta);
+        this.head = head.add(normal, normal.dotProduct(direction) > 0 ? DELTA : -DELTA);
         this.direction = direction;
+        inverseX = 1 / direction.getX();
+        inverseY = 1 / direction.getY();
+        inverseZ = 1 / direction.getZ();
     }
 
     @Override
@@ -71,13 +102,7 @@ public class Ray {
      * @return a point on the ray
      */
     public Point getPoint(double t) {
-        try {
-            if (isZero(t))
-                return head;
-            return head.add(direction.scale(t));
-        } catch (Exception e) {
-            return head;
-        }
+        return isZero(t) ? head : head.add(direction, t);
     }
 
     /**
@@ -104,7 +129,8 @@ public class Ray {
         Intersectable.GeoPoint closest = null;
         double minDistance = Double.MAX_VALUE;
         for (Intersectable.GeoPoint p : points) {
-            double distance = p.point.distance(head);
+            //comparing squared distances saves the square root
+            double distance = p.point.distanceSquared(head);
             if (distance < minDistance) {
                 closest = p;
                 minDistance = distance;
@@ -1,5 +1,7 @@
 package primitives;
 
+import static primitives.Util.isZero;
+
 /**
  * Represents a vector that starts from the origin to a specific point
  * @author Zili
@@ -14,18 +16,20 @@ public class Vector extends Point{
      */
     public Vector(double x, double y, double z) {
         super(x, y, z);
-        if(xyz.equals(Double3.ZERO))
+        if(isZero(x) && isZero(y) && isZero(z))
             throw new IllegalArgumentException("A vector must not be the zero vector");
     }
+
     /**
-     * Constructs a new vector according to a Double3 point
-     * @param xyz a double3 point for the tail of the vector
-     * @throws IllegalArgumentException in case of a zero vector
+     * Constructs a new vector without checking for a zero vector - used by the operations
+     * whose result is known to be non-zero
+     * @param x       first coordinate of the end point of the vector
+     * @param y       second coordinate of the end point of the vector
+     * @param z       third coordinate of the end point of the vector
+     * @param trusted a marker of the unchecked constructor
      */
-    Vector(Double3 xyz){
-        super(xyz);
-        if(xyz.equals(Double3.ZERO))
-            throw new IllegalArgumentException("A vector must not be the zero vector");
+    private Vector(double x, double y, double z, boolean trusted) {
+        super(x, y, z);
     }
 
     @Override
@@ -45,7 +49,7 @@ public class Vector extends Point{
      * @return the sum of this vector and the given vector as a new vector
      */
     public Vector add(Vector vec) {
-        return new Vector(this.xyz.add(vec.xyz));
+        return new Vector(x + vec.x, y + vec.y, z + vec.z);
     }
 
     /**
@@ -54,7 +58,7 @@ public class Vector extends Point{
      * @return the current vector scaled by the given scalar as a new vector
      */
     public Vector scale(double scalar) {
-        return new Vector(this.xyz.scale(scalar));
+        return new Vector(x * scalar, y * scalar, z * scalar);
     }
 
     /**
@@ -63,7 +67,7 @@ public class Vector extends Point{
      * @return the dot product between this vector to a given vector
      */
     public double dotProduct(Vector vec) {
-        return this.xyz.d1*vec.xyz.d1+this.xyz.d2*vec.xyz.d2+this.xyz.d3*vec.xyz.d3;
+        return x * vec.x + y * vec.y + z * vec.z;
     }
 
     /**
@@ -72,8 +76,8 @@ public class Vector extends Point{
      * @return the cross product between this vector to a given vector as a new vector
      */
     public Vector crossProduct(Vector vec) {
-        return new Vector((this.xyz.d2 * vec.xyz.d3) - (this.xyz.d3 * vec.xyz.d2), (this.xyz.d3 * vec.xyz.d1) - (this.xyz.d1 * vec.xyz.d3),
-                (this.xyz.d1 * vec.xyz.d2) - (this.xyz.d2 * vec.xyz.d1));
+        return new Vector((y * vec.z) - (z * vec.y), (z * vec.x) - (x * vec.z),
+                (x * vec.y) - (y * vec.x));
     }
 
     /**
@@ -91,11 +95,12 @@ public class Vector extends Point{
     }
 
     /**
-     * Normalizes the vector by dividing the vector by its length
+     * Normalizes the vector by dividing the vector by its length.
+     * The vector is not zero, so the result is not checked again
      * @return the normalized vector as a new vector
      */
-    public Vector normalize() {return new Vector(xyz.reduce(length()));}
-
-
-
+    public Vector normalize() {
+        double length = length();
+        return new Vector(x / length, y / length, z / length, true);
+    }
 }
@@ -1,15 +1,26 @@
 package renderer;
 
+import geometries.BVHBuilder;
+import geometries.Geometries;
 import primitives.Color;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.awt.*;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.MissingResourceException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
 
@@ -20,6 +31,18 @@ import static primitives.Util.isZero;
  * @author Zili
  */
 public class Camera implements Cloneable {
+    //The amount of workers of all the cameras rendering on virtual threads which may run at the same time -
+    //a single limit for the whole JVM
+    private static final Semaphore VIRTUAL_WORKERS = new Semaphore(Runtime.getRuntime().availableProcessors());
+    //Runs every rendering worker on a new virtual thread, running at most a worker per core at a time
+    private static final Executor VIRTUAL_THREADS = worker -> Thread.ofVirtual().name("render-worker").start(() -> {
+        VIRTUAL_WORKERS.acquireUninterruptibly();
+        try {
+            worker.run();
+        } finally {
+            VIRTUAL_WORKERS.release();
+        }
+    });
 
     private Point location=null; // Camera location
     private Vector vTo=null; // Forward direction vector
@@ -37,10 +60,27 @@ public class Camera implements Cloneable {
     private int numOfRays=1;
 
     //variables for acceleration
-    private int threadsCount = 1; // -2 auto, -1 range/stream, 0 no threads, 1+ number of threads
+    private int threadsCount = 1; // -2 auto, -1 fork/join work stealing, 0 no threads, 1+ number of threads
     private final int SPARE_THREADS = 2; // Spare threads if trying to use all the cores
     private double printInterval = 0; // printing progress percentage interval
     private boolean adaptive = false;
+    private int tileSize = Pixel.DEFAULT_TILE_SIZE; // width and height of the tiles handed out to the threads
+    //The executor running the rendering workers - a new platform thread for each worker by default
+    private Executor executor = worker -> new Thread(worker).start();
+    //True for running the rendering workers on virtual threads instead of the executor
+    private boolean virtualThreads = false;
+    //The split method of the bounding volume hierarchy, overrides the one of the scene when set
+    private BVHBuilder.SplitMethod bvhSplitMethod = null;
+    //True for collecting the render statistics of each pixel
+    private boolean instrumented = false;
+    //The statistics of the last completed instrumented rendering - every rendering collects its own statistics
+    private volatile RenderStatistics statistics = null;
+    //True for adding the samples of every pass to the image instead of replacing it
+    private boolean progressive = false;
+    //The listeners called after every pass of a rendering
+    private List<RenderListener> listeners = List.of();
+    //The pixel grid of the view plane in the resolution of the last constructed rays
+    private volatile PixelGrid pixelGrid = null;
 
     /**
      * Default private constructor
@@ -65,19 +105,99 @@ public class Camera implements Cloneable {
      * @return the constructed ray - from p0 through the wanted pixel
      */
     public Ray constructRay(int nX, int nY, int j, int i) {
-        Point pc = location.add(vTo.scale(distance));     // center of the view plane
-        double Ry = height/nY;                      // Ratio - pixel height
-        double Rx = width/nX;                       // Ratio - pixel width
+        return pixelGrid(nX, nY).constructRay(j, i);
+    }
+
+    /**
+     * Returns the pixel grid of the view plane in a given resolution - computed once, and reused as long
+     * as the rays are constructed in the same resolution
+     * @param nX amount of columns (row width)
+     * @param nY amount of rows (column height)
+     * @return the pixel grid
+     */
+    private PixelGrid pixelGrid(int nX, int nY) {
+        PixelGrid grid = pixelGrid;
+        if (grid == null || grid.nX != nX || grid.nY != nY)
+            pixelGrid = grid = new PixelGrid(nX, nY);
+        return grid;
+    }
+
+    /**
+     * The pixels of the view plane in a given resolution - the direction from the camera to the center of
+     * the top left pixel, and the steps of the direction from a column to the next one and from a row to the
+     * next one. The direction of a ray through any point of the view plane is found by adding multiples of
+     * the steps to the direction of the first pixel in plain doubles, without creating points and vectors
+     */
+    private class PixelGrid {
+        /** The resolution of the grid */
+        final int nX, nY;
+        /** The direction to the center of the top left pixel */
+        private final double x0, y0, z0;
+        /** The step of the direction from a column to the next one */
+        private final double columnX, columnY, columnZ;
+        /** The step of the direction from a row to the next one */
+        private final double rowX, rowY, rowZ;
 
-        double yJ = alignZero(-(i - (nY - 1) / 2d) * Ry);       // move pc Yi pixels
-        double xJ = alignZero((j - (nX - 1) / 2d) * Rx);        // move pc Xj pixels
+        /**
+         * Computes the pixel grid of a resolution
+         * @param nX amount of columns (row width)
+         * @param nY amount of rows (column height)
+         */
+        PixelGrid(int nX, int nY) {
+            this.nX = nX;
+            this.nY = nY;
+            double rX = width / nX;   // pixel width
+            double rY = height / nY;  // pixel height
+            columnX = vRight.getX() * rX;
+            columnY = vRight.getY() * rX;
+            columnZ = vRight.getZ() * rX;
+            rowX = -vUp.getX() * rY;
+            rowY = -vUp.getY() * rY;
+            rowZ = -vUp.getZ() * rY;
+            // from the center of the view plane to the center of the top left pixel
+            double left = -(nX - 1) / 2d, top = -(nY - 1) / 2d;
+            x0 = vTo.getX() * distance + left * columnX + top * rowX;
+            y0 = vTo.getY() * distance + left * columnY + top * rowY;
+            z0 = vTo.getZ() * distance + left * columnZ + top * rowZ;
+        }
 
-        Point PIJ = pc;
-        if(!isZero(xJ))  PIJ = PIJ.add(vRight.scale(xJ));//move right ass needed
-        if(!isZero(yJ))  PIJ = PIJ.add(vUp.scale(yJ));//move left as needed
-        //else stay in thr middle
+        /**
+         * Constructs a ray from the camera through a point of the view plane
+         * @param column the column of the point in pixels (whole for the centers of the pixels)
+         * @param row    the row of the point in pixels (whole for the centers of the pixels)
+         * @return the ray
+         */
+        Ray constructRay(double column, double row) {
+            return new Ray(location, new Vector(x0 + column * columnX + row * rowX,
+                    y0 + column * columnY + row * rowY, z0 + column * columnZ + row * rowZ));
+        }
 
-        return new Ray(location, PIJ.subtract(location));
+        /**
+         * Constructs the rays from the camera through the centers of the cells of a square grid over a pixel.
+         * The directions are found incrementally - a step of a cell is added from a ray to the next one
+         * @param j    the column of the pixel
+         * @param i    the row of the pixel
+         * @param side the amount of cells in each row and column of the grid
+         * @return the rays, row after row
+         */
+        List<Ray> constructRays(int j, int i, int side) {
+            double cell = 1d / side;
+            double cellColumnX = columnX * cell, cellColumnY = columnY * cell, cellColumnZ = columnZ * cell;
+            double cellRowX = rowX * cell, cellRowY = rowY * cell, cellRowZ = rowZ * cell;
+            // the center of the first cell
+            double column = j - 0.5 + cell / 2, row = i - 0.5 + cell / 2;
+            double x = x0 + column * columnX + row * rowX;
+            double y = y0 + column * columnY + row * rowY;
+            double z = z0 + column * columnZ + row * rowZ;
+
+            List<Ray> rays = new ArrayList<>(side * side);
+            for (int r = 0; r < side; ++r, x += cellRowX, y += cellRowY, z += cellRowZ) {
+                double dx = x, dy = y, dz = z;
+                for (int c = 0; c < side; ++c, dx += cellColumnX, dy += cellColumnY, dz += cellColumnZ)
+                    rays.add(new Ray(location, new Vector(dx, dy, dz)));
+            }
+            return rays;
+        }
     }
 
     /**
@@ -206,21 +326,113 @@ public class Camera implements Cloneable {
 
         /**
          * set the number of threads that can run concurrently
-         * @param threads number of threads
+         * @param threads number of threads: 0 for rendering in the calling thread, -1 for work stealing
+         *                in the common fork/join pool, -2 for a thread per available core (except for
+         *                spare cores), -3 for a virtual thread per available core, or a positive number
+         *                of threads.<br/>
+         *                The virtual threads of all the cameras share a single JVM-wide limit of a running
+         *                worker per core - all the cameras of the process rendering in this mode run at most
+         *                a worker per core in total (the other workers wait for their turn without holding a
+         *                carrier thread), so many small renders can run at the same time without a platform
+         *                thread per worker. The other modes run the workers by the executor of the camera
+         *                again (see {@link #setExecutor(Executor)})
          * @return the camera object
          */
         public Builder setMultithreading(int threads) {
-            if (threads < -2)
-                throw new IllegalArgumentException("Multithreading must be -2 or higher");
+            if (threads < -3)
+                throw new IllegalArgumentException("Multithreading must be -3 or higher");
+            camera.virtualThreads = threads == -3;
             if (threads >= -1)
                 camera.threadsCount = threads;
-            else { // == -2
+            else if (threads == -2) {
                 int cores = Runtime.getRuntime().availableProcessors() - camera.SPARE_THREADS;
                 camera.threadsCount = cores <= 2 ? 1 : cores;
+            } else { // == -3
+                camera.threadsCount = Runtime.getRuntime().availableProcessors();
             }
             return this;
         }
 
+        /**
+         * Sets the split method of the bounding volume hierarchy built over the scene geometries
+         * before rendering, overriding the split method set in the scene
+         * @param bvhSplitMethod the split method (median for fast previews, SAH for better trees)
+         * @return the camera object
+         */
+        public Builder setBVH(BVHBuilder.SplitMethod bvhSplitMethod) {
+            camera.bvhSplitMethod = bvhSplitMethod;
+            return this;
+        }
+
+        /**
+         * Sets the executor running the rendering workers (the amount of workers is set by
+         * {@link #setMultithreading(int)}). A shared executor lets many small renders run at the same
+         * time without a platform thread per worker, for example a fixed thread pool (or the virtual
+         * threads set by {@link #setMultithreading(int)}, which the executor replaces). The camera never
+         * shuts the executor down
+         * @param executor the executor of the rendering workers
+         * @return the camera object
+         */
+        public Builder setExecutor(Executor executor) {
+            if (executor == null)
+                throw new IllegalArgumentException("Executor must not be null");
+            camera.executor = executor;
+            camera.virtualThreads = false;
+            return this;
+        }
+
+        /**
+         * Sets the size of the square tiles of pixels handed out to the rendering threads
+         * @param tileSize the width and height of a tile in pixels (for example 16 or 32)
+         * @return the camera object
+         */
+        public Builder setTileSize(int tileSize) {
+            if (tileSize < 1)
+                throw new IllegalArgumentException("Tile size must be positive");
+            camera.tileSize = tileSize;
+            return this;
+        }
+
+        /**
+         * Turns on or off the instrumentation of the renderings - the rays, the intersection tests and the
+         * time of each pixel are counted, and can be read from {@link Camera#getStatistics()} after rendering
+         * @param instrumented true for collecting the render statistics
+         * @return the camera object
+         */
+        public Builder setInstrumentation(boolean instrumented) {
+            camera.instrumented = instrumented;
+            return this;
+        }
+
+        /**
+         * Turns on or off the progressive rendering - the image is rendered with a single ray through the
+         * center of each pixel first, and then every pass adds a stratified grid of jittered samples to the
+         * samples of the previous passes (in the float frame buffer of the image writer), until the amount of rays of the
+         * camera is reached. The first image is ready fast and keeps being refined, and the render listeners
+         * get it after every pass. The adaptive super sampling is not used by a progressive rendering
+         * @param progressive true for progressive rendering
+         * @return the camera object
+         */
+        public Builder setProgressive(boolean progressive) {
+            camera.progressive = progressive;
+            return this;
+        }
+
+        /**
+         * Adds a listener called after every pass of the renderings of the camera
+         * @param listener the listener
+         * @return the camera object
+         */
+        public Builder addRenderListener(RenderListener listener) {
+            if (listener == null)
+                throw new IllegalArgumentException("Render listener must not be null");
+            // a new list, so the cameras already built do not get the listener
+            List<RenderListener> listeners = new ArrayList<>(camera.listeners);
+            listeners.add(listener);
+            camera.listeners = List.copyOf(listeners);
+            return this;
+        }
+
         /**
          * set percentage of completed rendering
          * @param interval percentage of completed rendering
@@ -272,45 +484,377 @@ public class Camera implements Cloneable {
 
     /**
      * Renders the image by iterating through each pixel in the view plane and
-     * calling cast ray for each pixel
+     * calling cast ray for each pixel. A progressive rendering is run in the background
+     * pass after pass, and is waited for
      * @throws MissingResourceException if either the image writer or the ray tracer base are not set.
      */
     public Camera renderImage() {
+        checkResources();
+        if (progressive)
+            try {
+                renderImageAsync(null).get();
+                return this;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Rendering was interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw new IllegalStateException("Rendering failed", e.getCause());
+            }
+        buildSpatialIndex();
+
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+
+        Pixel pixels = new Pixel(nY, nX, printInterval, tileSize);
+        RenderStatistics statistics = newStatistics(nX, nY);
+        startStatistics(statistics);
+        try {
+            if (threadsCount == 0) // no threads - render in the current thread
+                renderPixels(pixels, nX, nY, numOfRays, statistics);
+            else
+                pixels.waitToFinish(startPass(pixels, nX, nY, numOfRays, statistics));
+        } catch (InterruptedException e) {
+            pixels.stop();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Rendering was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            throw new IllegalStateException("Rendering failed", e.getCause());
+        } finally {
+            stopStatistics(statistics);
+        }
+        for (RenderListener listener : listeners)
+            listener.passCompleted(imageWriter, numOfRays);
+        return this;
+    }
+
+    /**
+     * Renders the image in the background within a time budget. The image is refined in passes - first
+     * with a single ray per pixel, then with 4, 16 (and so on) rays, up to the amount of rays of the
+     * camera - and every pass overwrites the pixels of the previous one, so the image always holds the
+     * best quality reached so far. When the time is up no more pixels are rendered, and the returned
+     * future completes with the image as it is (the last pass may be partial). Cancelling the returned
+     * future stops the rendering the same way, and the image reached can still be written.<br/>
+     * Without a time budget the image is rendered in a single pass of the full amount of rays, and can
+     * only be cancelled.<br/>
+     * A progressive camera adds the samples of every pass to the samples of the previous passes instead
+     * (see {@link Builder#setProgressive(boolean)}), with or without a time budget.<br/>
+     * The render listeners of the camera are called after every completed pass. The workers are run by
+     * the executor of the camera (a single worker if there are no threads), and every pass starts when
+     * the previous one completes, without a thread waiting for it
+     * @param timeBudget the time given to the rendering, or null for rendering the full quality
+     * @return a future completed with the camera when the rendering is over
+     * @throws MissingResourceException if either the image writer or the ray tracer base are not set.
+     */
+    public CompletableFuture<Camera> renderImageAsync(Duration timeBudget) {
+        checkResources();
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+
+        AtomicBoolean stopped = new AtomicBoolean();
+        // the time is checked by the workers with every pixel, so the budget holds however busy the JVM is
+        long deadline = timeBudget == null ? Pixel.NO_DEADLINE : System.nanoTime() + timeBudget.toNanos();
+        RenderStatistics statistics = newStatistics(nX, nY);
+        CompletableFuture<Void> job = CompletableFuture.runAsync(() -> {
+            buildSpatialIndex();
+            startStatistics(statistics);
+            if (progressive)
+                imageWriter.getFrameBuffer().clear();
+        }, workerExecutor());
+        int samples = 0;
+        for (int rays : passes(timeBudget != null)) {
+            samples = progressive ? samples + rays : rays;
+            int passSamples = samples;
+            job = job.thenCompose(ignore -> {
+                if (stopped.get())
+                    return CompletableFuture.<Void>completedFuture(null);
+                return startPass(new Pixel(nY, nX, 0, tileSize, stopped, deadline), nX, nY, rays, statistics).thenRun(() -> {
+                    if (printInterval != 0)
+                        System.out.println(passSamples + (stopped.get() ? " rays per pixel - stopped"
+                                : " rays per pixel - done"));
+                    if (!stopped.get())
+                        for (RenderListener listener : listeners)
+                            listener.passCompleted(imageWriter, passSamples);
+                });
+            });
+        }
+
+        CompletableFuture<Camera> result = job.whenComplete((ignore, e) -> stopStatistics(statistics)).thenApply(ignore -> this);
+        // a cancelled (or failed) rendering stops its workers
+        result.whenComplete((camera, e) -> stopped.set(true));
+        return result;
+    }
+
+    /**
+     * Plans the passes of a rendering - the amount of rays per pixel of each pass. A progressive rendering
+     * adds stratified grids of samples whose sides are doubled every pass (1, 4, 16... samples), the last
+     * passes limited by the samples left, until the amount of rays of the camera is reached. Otherwise
+     * every pass replaces the previous one - 1, 4, 16 (and so on) rays up to the amount of rays of the
+     * camera when refining, or a single pass of the amount of rays of the camera
+     * @param refine true for refining the image in passes
+     * @return the amounts of rays per pixel of the passes
+     */
+    private List<Integer> passes(boolean refine) {
+        List<Integer> passes = new ArrayList<>();
+        if (progressive)
+            for (int left = numOfRays, side = 1; left > 0; side *= 2) {
+                side = Math.min(side, (int) Math.sqrt(left));
+                passes.add(side * side);
+                left -= side * side;
+            }
+        else if (refine)
+            for (int rays = 1; ; rays = Math.min(rays * 4, numOfRays)) {
+                passes.add(rays);
+                if (rays >= numOfRays)
+                    break;
+            }
+        else
+            passes.add(numOfRays);
+        return passes;
+    }
+
+    /**
+     * Checks that the camera has the resources needed for rendering
+     * @throws MissingResourceException if either the image writer or the ray tracer base are not set.
+     */
+    private void checkResources() {
         if (imageWriter == null)
             throw new MissingResourceException("Camera resource not set", "Camera", "imageWriter");
 
         if (rayTracer == null)
             throw new MissingResourceException("Camera resource not set", "Camera", "rayTracer");
+    }
 
-        int nX = imageWriter.getNx();
-        int nY = imageWriter.getNy();
+    /**
+     * Creates the render statistics of a rendering of the image, if the camera is instrumented
+     * @param nX number of pixels on the width of the view plane
+     * @param nY number of pixels on the height of the view plane
+     * @return the statistics of the rendering, or null if the camera is not instrumented
+     * @throws IllegalArgumentException if the image is too large for render statistics
+     */
+    private RenderStatistics newStatistics(int nX, int nY) {
+        return instrumented ? new RenderStatistics(nX, nY) : null;
+    }
+
+    /**
+     * Starts collecting the render statistics of a rendering
+     * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+     */
+    private void startStatistics(RenderStatistics statistics) {
+        if (statistics != null)
+            RenderStatistics.activate(true);
+    }
+
+    /**
+     * Stops collecting the render statistics of a rendering, keeps them as the statistics of the last
+     * rendering, and prints them when debug printing is on
+     * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+     */
+    private void stopStatistics(RenderStatistics statistics) {
+        this.statistics = statistics;
+        if (statistics == null)
+            return;
+        RenderStatistics.activate(false);
+        if (printInterval != 0)
+            System.out.println(statistics);
+    }
+
+    /**
+     * Returns the statistics of the last completed rendering, if the instrumentation is turned on. Every
+     * rendering collects its own statistics, so a rendering started while another one is in progress does
+     * not change the statistics of the other one
+     * @return the statistics of each pixel, or null if the camera is not instrumented or did not complete
+     * a rendering yet
+     */
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Starts a rendering pass over the image with the configured amount of workers, run by the executor of
+     * the camera - the image is divided into tiles which are handed out to the workers. With work stealing
+     * the pass is run in the common fork/join pool instead - the image is split recursively into regions,
+     * and idle threads steal the regions still waiting in the queues of busy threads, so the expensive parts
+     * of the image (reflections and refractions) are shared by all the cores until the end of the frame
+     * @param pixels the pixel manager of the pass
+     * @param nX     number of pixels on the width of the view plane
+     * @param nY     number of pixels on the height of the view plane
+     * @param rays   the amount of rays per pixel
+     * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+     * @return the completion of the pass
+     */
+    private CompletableFuture<Void> startPass(Pixel pixels, int nX, int nY, int rays, RenderStatistics statistics) {
+        if (threadsCount == -1)
+            return CompletableFuture.runAsync(
+                    new RegionRenderer(pixels, nX, nY, rays, statistics, 0, nY, 0, nX)::invoke,
+                    ForkJoinPool.commonPool());
+        CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.max(threadsCount, 1)];
+        for (int i = 0; i < workers.length; ++i)
+            workers[i] = CompletableFuture.runAsync(() -> renderPixels(pixels, nX, nY, rays, statistics),
+                    workerExecutor());
+        return CompletableFuture.allOf(workers);
+    }
+
+    /**
+     * Returns the executor running the rendering workers - the virtual threads or the executor of the camera
+     * @return the executor of the workers
+     */
+    private Executor workerExecutor() {
+        return virtualThreads ? VIRTUAL_THREADS : executor;
+    }
+
+    /**
+     * Renders the pixels handed out by the pixel manager until there are no pixels left.
+     * The method is run by each of the rendering threads
+     * @param pixels the pixel manager of the rendered image
+     * @param nX     number of pixels on the width of the view plane
+     * @param nY     number of pixels on the height of the view plane
+     * @param rays   the amount of rays per pixel
+     * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+     */
+    private void renderPixels(Pixel pixels, int nX, int nY, int rays, RenderStatistics statistics) {
+        for (Pixel.Cursor pixel = pixels.cursor(); pixel.nextPixel(); pixels.pixelDone())
+            renderPixel(nX, nY, pixel.col, pixel.row, rays, statistics);
+    }
 
-        //regular or antialiasing without acceleration
-        if (!adaptive) {
-            for (int j = 0; j < nX; j++) {
-                for (int i = 0; i < nY; i++) {
-                    if(numOfRays==1)
-                        castRay(j, i, nX, nY);
-                    else {
-                        List<Ray> rays = constructBeamOfRays(nX, nY, j, i, numOfRays);
-                        Color rayColor = rayTracer.traceRay(rays);
-                        imageWriter.writePixel(j, i, rayColor);
-                    }
+    /**
+     * A fork/join task rendering a rectangular region of the image. A region larger than a tile
+     * is split in two along its longer side, and the halves are forked as sub-tasks. A stopped rendering
+     * renders no more rows. The tasks are never serialized
+     */
+    @SuppressWarnings("serial")
+    private class RegionRenderer extends RecursiveAction {
+        private final Pixel pixels;
+        private final int nX, nY;
+        /** The amount of rays per pixel */
+        private final int rays;
+        /** The statistics of the rendering, null if the camera is not instrumented */
+        private final RenderStatistics statistics;
+        /** Rows and columns of the region - from the first (inclusive) to the last (exclusive) */
+        private final int rowStart, rowEnd, colStart, colEnd;
+
+        /**
+         * Constructs a task for a region of the image
+         * @param pixels   the pixel manager of the rendered image
+         * @param nX       number of pixels on the width of the view plane
+         * @param nY       number of pixels on the height of the view plane
+         * @param rays     the amount of rays per pixel
+         * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+         * @param rowStart first row of the region
+         * @param rowEnd   row after the last row of the region
+         * @param colStart first column of the region
+         * @param colEnd   column after the last column of the region
+         */
+        RegionRenderer(Pixel pixels, int nX, int nY, int rays, RenderStatistics statistics,
+                       int rowStart, int rowEnd, int colStart, int colEnd) {
+            this.pixels = pixels;
+            this.nX = nX;
+            this.nY = nY;
+            this.rays = rays;
+            this.statistics = statistics;
+            this.rowStart = rowStart;
+            this.rowEnd = rowEnd;
+            this.colStart = colStart;
+            this.colEnd = colEnd;
+        }
+
+        @Override
+        protected void compute() {
+            int rows = rowEnd - rowStart, cols = colEnd - colStart;
+            if (rows <= tileSize && cols <= tileSize) {
+                for (int i = rowStart; i < rowEnd && !pixels.isStopped(); ++i) {
+                    for (int j = colStart; j < colEnd; ++j)
+                        renderPixel(nX, nY, j, i, rays, statistics);
+                    pixels.pixelsDone(cols);
                 }
+            } else if (rows > cols) {
+                int middle = rowStart + rows / 2;
+                invokeAll(new RegionRenderer(pixels, nX, nY, rays, statistics, rowStart, middle, colStart, colEnd),
+                        new RegionRenderer(pixels, nX, nY, rays, statistics, middle, rowEnd, colStart, colEnd));
+            } else {
+                int middle = colStart + cols / 2;
+                invokeAll(new RegionRenderer(pixels, nX, nY, rays, statistics, rowStart, rowEnd, colStart, middle),
+                        new RegionRenderer(pixels, nX, nY, rays, statistics, rowStart, rowEnd, middle, colEnd));
             }
+        }
+    }
+
+    /**
+     * Renders a pixel into the image, measuring its costs if the camera is instrumented, and adding
+     * its samples to the samples of the previous passes in a progressive rendering
+     * @param nX number of pixels on the width of the view plane
+     * @param nY number of pixels on the height of the view plane
+     * @param j  the column of the pixel
+     * @param i  the row of the pixel
+     * @param rays the amount of rays per pixel
+     * @param statistics the statistics of the rendering, or null if the camera is not instrumented
+     */
+    private void renderPixel(int nX, int nY, int j, int i, int rays, RenderStatistics statistics) {
+        if (statistics != null)
+            statistics.startPixel();
+        Color color = calcPixelColor(nX, nY, j, i, rays);
+        if (statistics != null)
+            statistics.endPixel(j, i);
+        if (progressive)
+            imageWriter.getFrameBuffer().add(j, i, color, rays);
+        else
+            imageWriter.writePixel(j, i, color);
+    }
+
+    /**
+     * Calculates the color of a pixel according to the sampling mode of the camera - a single ray,
+     * a beam of rays (antialiasing) or adaptive super sampling. In a progressive rendering only the first
+     * sample of a pixel is through its center, and the next ones are a jittered grid over the pixel
+     * @param nX number of pixels on the width of the view plane
+     * @param nY number of pixels on the height of the view plane
+     * @param j  the column of the pixel
+     * @param i  the row of the pixel
+     * @param rays the amount of rays per pixel
+     * @return the color of the pixel
+     */
+    private Color calcPixelColor(int nX, int nY, int j, int i, int rays) {
+        if (progressive && imageWriter.getFrameBuffer().getSamples(j, i) > 0)
+            return rayTracer.traceRay(constructJitteredRays(nX, nY, j, i, (int) Math.sqrt(rays)));
+        if (adaptive)
+            return AdaptiveSuperSampling(nX, nY, j, i, rays);
+        if (rays == 1)
+            return rayTracer.traceRay(constructRay(nX, nY, j, i));
+        return rayTracer.traceRay(constructBeamOfRays(nX, nY, j, i, rays));
+    }
 
-        } else {//acceleration using super sampling and threads
-            Pixel.initialize(nY, nX, 1);
-            while (threadsCount-- > 0) {
-                new Thread(() -> {
-                    for (Pixel pixel = new Pixel(); pixel.nextPixel(); Pixel.pixelDone())
-                        imageWriter.writePixel(pixel.col, pixel.row, AdaptiveSuperSampling(nX, nY, pixel.col, pixel.row,numOfRays));//AdaptiveSuperSampling() to determine the color of each pixel.
-                }).start();
+    /**
+     * Builds the spatial index over the scene geometries - the bounding volume hierarchy requested by the
+     * camera or by the scene, or the uniform grid requested by the scene - if it was not built yet, and
+     * prints its statistics when debug printing is on
+     */
+    private void buildSpatialIndex() {
+        BVHBuilder.SplitMethod splitMethod = bvhSplitMethod != null ? bvhSplitMethod : rayTracer.scene.bvhSplitMethod;
+        boolean grid = bvhSplitMethod == null && rayTracer.scene.uniformGrid;
+        if (splitMethod == null && !grid)
+            return;
+        Geometries geometries = rayTracer.scene.geometries;
+        //cameras rendering the same scene at the same time share its index, so it is built only once. An index
+        //of another kind is built aside and swapped in at once - cameras already rendering the scene go on
+        //over the previous index, which is left unchanged
+        synchronized (geometries) {
+            if (grid) {
+                if (geometries.getGrid() != null)
+                    return;
+                geometries.buildGrid();
+            } else {
+                BVHBuilder.Statistics statistics = geometries.getBVHStatistics();
+                if (statistics != null && statistics.splitMethod == splitMethod)
+                    return;
+                geometries.buildBVH(splitMethod);
             }
-            Pixel.waitToFinish();
         }
-        return this;
+        if (printInterval != 0)
+            System.out.println(grid ? geometries.getGrid() : geometries.getBVHStatistics());
     }
+
     /**
      * Checks the color of the pixel with the help of individual rays and averages between them and only
      * if necessary continues to send beams of rays in recursion
@@ -342,7 +886,7 @@ public class Camera implements Cloneable {
     }
 
     private Point centerScreenPoint() {
-        return location.add(vTo.scale(distance));
+        return location.add(vTo, distance);
     }
     /**
      * Checks the color of the pixel with the help of individual rays and averages between
@@ -373,11 +917,11 @@ public class Camera implements Cloneable {
         Ray tempRay;
         for (int i = -1; i <= 1; i += 2){//This nested loop iterates over the four corners of the current pixel. For each corner:
             for (int j = -1; j <= 1; j += 2) {
-                tempCorner = centerP.add(Vright.scale(i * Width / 2)).add(Vup.scale(j * Height / 2));
+                tempCorner = centerP.add(Vright, i * Width / 2).add(Vup, j * Height / 2);
                 cornersList.add(tempCorner);//For each corner, calculate the corner point and add it to cornersList.
                 if (prePoints == null || !isInList(prePoints, tempCorner)) {//If the corner point hasn't been processed before,
                     tempRay = new Ray(cameraLoc, tempCorner.subtract(cameraLoc));//a ray is traced from the camera to the corner point,
-                    nextCenterPList.add(centerP.add(Vright.scale(i * Width / 4)).add(Vup.scale(j * Height / 4)));//The center point for the next recursion is added to nextCenterPList
+                    nextCenterPList.add(centerP.add(Vright, i * Width / 4).add(Vup, j * Height / 4));//The center point for the next recursion is added to nextCenterPList
                     colorList.add(rayTracer.traceRay(tempRay));//// and the resulting color is added to colorList
                 }
             }
@@ -444,10 +988,10 @@ public class Camera implements Cloneable {
 
 
         if (!isZero(xJ)) {
-            centerOfScreen = centerOfScreen.add(vRight.scale(xJ));
+            centerOfScreen = centerOfScreen.add(vRight, xJ);
         }
         if (!isZero(yI)) {
-            centerOfScreen = centerOfScreen.add(vUp.scale(yI));
+            centerOfScreen = centerOfScreen.add(vUp, yI);
         }
         return centerOfScreen;//returns the center of the pixel
     }
@@ -485,23 +1029,44 @@ public class Camera implements Cloneable {
     }
 
     /**
-     *Casts a ray through a specified pixel and coloring the pixel using the imageWriter
-     * @param j The x-coordinate of the pixel
-     * @param i The y-coordinate of the pixel
-     * @param nX number of pixels on the width of the view plane.
-     * @param nY number of pixels on the height of the view plane.
+     * Writes a false color heatmap of a cost of the pixels of the last rendering to file, next to the image,
+     * by delegating to image writer
+     * @param counter the cost to map
+     * @return the camera object
+     * @throws IllegalStateException if the last rendering was not instrumented
      */
-    private void castRay(int j, int i,int nX, int nY) {
-        Ray ray = constructRay(nX,nY,j,i);
-        Color color= this.rayTracer.traceRay(ray);
-        this.imageWriter.writePixel(j, i, color);
-        //Pixel.pixelDone();
+    public Camera writeHeatmap(RenderStatistics.Counter counter) {
+        if (statistics == null)
+            throw new IllegalStateException("The camera did not render with instrumentation");
+        imageWriter.writeHeatmap(statistics, counter);
+        return this;
     }
 
+    /**
+     * Constructs a stratified beam of rays through a given pixel - the pixel is divided into a grid of
+     * cells, and a ray is constructed through a random point in each cell
+     * @param nX   number of pixels on the width of the view plane
+     * @param nY   number of pixels on the height of the view plane
+     * @param j    the column of the pixel
+     * @param i    the row of the pixel
+     * @param side the amount of cells in each row and column of the grid
+     * @return the rays
+     */
+    private List<Ray> constructJitteredRays(int nX, int nY, int j, int i, int side) {
+        PixelGrid grid = pixelGrid(nX, nY);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // from the top left corner of the pixel
+        double left = j - 0.5, top = i - 0.5;
+        List<Ray> rays = new ArrayList<>(side * side);
+        for (int row = 0; row < side; ++row)
+            for (int column = 0; column < side; ++column)
+                rays.add(grid.constructRay(left + (column + random.nextDouble()) / side,
+                        top + (row + random.nextDouble()) / side));
+        return rays;
+    }
 
     /**
      * construct a bim of rays through a given pixel, treat every pixel like a mini grid
-     * use the help function constructRaysThroughPixel
      * @param nX amount of columns (row width)
      * @param nY amount of rows (column width)
      * @param j pixel index for column
@@ -516,51 +1081,7 @@ public class Camera implements Cloneable {
         }
 
         int miniGridLength = (int) Math.floor(Math.sqrt(raysAmount)); // number of rays in each row or column
-
-        double Ry = height / nY; //height of each pixel
-        double Rx = width / nX;  ////width of each pixel
-        double Yi = (i - (nY - 1) / 2d) * Ry; //y of center coordinate
-        double Xj = (j - (nX - 1) / 2d) * Rx; //x of the center coordinate
-
-        double PRy = Ry / miniGridLength; // height distance between each ray
-        double PRx = Rx / miniGridLength; // width distance between each ray
-
-        List<Ray> sample_rays = new ArrayList<>();
-
-        for (int row = 0; row < miniGridLength; ++row) {
-            for (int column = 0; column < miniGridLength; ++column) {
-                sample_rays.add(constructRaysThroughPixel(PRy, PRx, Yi, Xj, row, column));
-            }
-        }
-        return sample_rays;
-    }
-
-    /**
-     *Construct a ray through a mini pixel in a pixel mini grid.
-     * @param Ry height of each mini grid block we divided the pixel into
-     * @param Rx width of each mini grid block we divided the pixel into
-     * @param yi distance of original pixel from (0,0) on Y axis
-     * @param xj distance of original pixel from (0,0) on X axis
-     * @param j j coordinate of mini "pixel"
-     * @param i i coordinate of mini "pixel"
-     * @return ray constructed through a mini pixel
-     */
-    private Ray constructRaysThroughPixel(double Ry,double Rx, double yi, double xj, int j, int i){
-        Point Pc =location.add(vTo.scale(distance)); //the center of the screen
-
-        double miniY =  (i *Ry + Ry/2d); //The Y coordinate of the sub-pixel within the pixel's mini-grid
-        double miniX=   (j *Rx + Rx/2d); //The X coordinate of the sub-pixel within the pixel's mini-grid
-
-        Point Pij = Pc; //The point on the pixel to construct a ray from
-        if (!isZero(miniX + xj))
-            Pij = Pij.add(vRight.scale(miniX + xj));
-
-        //Moving the point through which a beam is casted on the y axis
-        if (!isZero(miniY + yi))
-            Pij = Pij.add(vUp.scale(-miniY -yi ));
-
-        Vector Vij = Pij.subtract(location);
-        return new Ray(location,Vij);
+        return pixelGrid(nX, nY).constructRays(j, i, miniGridLength);
     }
 
 }
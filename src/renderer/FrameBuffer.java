@@ -0,0 +1,221 @@
+package renderer;
+
+import primitives.Color;
+
+import java.util.Arrays;
+
+/**
+ * The frame buffer of a rendered image - the colors of the pixels in full precision, before they are
+ * clamped and quantized for an image file. Each pixel holds the sums of the red, green and blue components
+ * of its samples and the amount of the samples, as four floats in a flat array (row after row), so its color
+ * is the average of its samples, and the samples of several passes or of several partial renderings of the
+ * same image can be added together.<br/>
+ * The rendering threads write into the buffer without locks and without creating objects - every pixel
+ * is written by the single thread rendering its tile, and the completion of the rendering makes the writes
+ * visible to the thread waiting for it.<br/>
+ * The floats are kept in an array on the heap. An image too large for the heap is rendered into a
+ * {@link MappedFrameBuffer}, which keeps them in a file mapped to memory instead
+ * @author Zili
+ */
+public class FrameBuffer {
+    /** The amount of floats of each pixel - red, green and blue sums and the amount of samples */
+    protected static final int CHANNELS = 4;
+    /** The offset of the amount of samples in the floats of a pixel */
+    private static final int SAMPLES = 3;
+
+    /** Horizontal resolution of the image */
+    private final int nX;
+    /** Vertical resolution of the image */
+    private final int nY;
+    /** The sums and the amounts of samples of the pixels (null if a subclass keeps them) */
+    private final float[] data;
+
+    /**
+     * Constructs an empty (black) frame buffer of an image on the heap
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     * @throws IllegalArgumentException if the image is too large for an array
+     */
+    public FrameBuffer(int nX, int nY) {
+        this(nX, nY, true);
+    }
+
+    /**
+     * Constructs an empty (black) frame buffer of an image
+     * @param nX   amount of pixels by width
+     * @param nY   amount of pixels by height
+     * @param heap true for keeping the floats in an array on the heap, false if a subclass keeps them
+     *             (overriding {@link #load(long)}, {@link #store(long, float)} and {@link #clear()})
+     */
+    protected FrameBuffer(int nX, int nY, boolean heap) {
+        if (nX < 1 || nY < 1)
+            throw new IllegalArgumentException("Frame buffer resolution must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        long size = (long) CHANNELS * nX * nY;
+        if (heap && size > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("The image is too large for the heap - use a mapped frame buffer");
+        data = heap ? new float[(int) size] : null;
+    }
+
+    /**
+     * Returns the horizontal resolution of the image
+     * @return the amount of pixels by width
+     */
+    public int getNx() { return nX; }
+
+    /**
+     * Returns the vertical resolution of the image
+     * @return the amount of pixels by height
+     */
+    public int getNy() { return nY; }
+
+    /**
+     * Reads a float of the buffer
+     * @param index the index of the float - the pixel (row after row) times the channels, plus the channel
+     * @return the float
+     */
+    protected float load(long index) {
+        return data[(int) index];
+    }
+
+    /**
+     * Writes a float of the buffer
+     * @param index the index of the float - the pixel (row after row) times the channels, plus the channel
+     * @param value the float
+     */
+    protected void store(long index, float value) {
+        data[(int) index] = value;
+    }
+
+    /**
+     * Returns the index of the first float of a pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the index of the red sum of the pixel
+     */
+    private long index(int x, int y) {
+        return CHANNELS * ((long) y * nX + x);
+    }
+
+    /**
+     * Sets the color of a pixel, replacing all its samples by a single sample
+     * @param x     the column of the pixel
+     * @param y     the row of the pixel
+     * @param color the color of the pixel
+     */
+    public void set(int x, int y, Color color) {
+        long pixel = index(x, y);
+        store(pixel, (float) color.getRed());
+        store(pixel + 1, (float) color.getGreen());
+        store(pixel + 2, (float) color.getBlue());
+        store(pixel + SAMPLES, 1);
+    }
+
+    /**
+     * Adds samples to a pixel
+     * @param x       the column of the pixel
+     * @param y       the row of the pixel
+     * @param color   the average color of the added samples
+     * @param samples the amount of the added samples
+     */
+    public void add(int x, int y, Color color, int samples) {
+        long pixel = index(x, y);
+        store(pixel, load(pixel) + (float) (color.getRed() * samples));
+        store(pixel + 1, load(pixel + 1) + (float) (color.getGreen() * samples));
+        store(pixel + 2, load(pixel + 2) + (float) (color.getBlue() * samples));
+        store(pixel + SAMPLES, load(pixel + SAMPLES) + samples);
+    }
+
+    /**
+     * Adds the samples of another frame buffer of the same image (for example a partial rendering of some of
+     * the pixels, or another pass of samples) to the samples of this frame buffer
+     * @param other the other frame buffer
+     * @throws IllegalArgumentException if the resolutions of the frame buffers are different
+     */
+    public void merge(FrameBuffer other) {
+        if (other.nX != nX || other.nY != nY)
+            throw new IllegalArgumentException("Frame buffers of different resolutions cannot be merged");
+        long size = (long) CHANNELS * nX * nY;
+        for (long i = 0; i < size; ++i)
+            store(i, load(i) + other.load(i));
+    }
+
+    /**
+     * Removes the samples of all the pixels
+     */
+    public void clear() {
+        Arrays.fill(data, 0);
+    }
+
+    /**
+     * Returns the amount of samples of a pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the amount of samples of the pixel (0 for a pixel which was not rendered)
+     */
+    public int getSamples(int x, int y) {
+        return (int) load(index(x, y) + SAMPLES);
+    }
+
+    /**
+     * Returns the red component of the color of a pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the average red component of the samples of the pixel (0 for a pixel which was not rendered)
+     */
+    public float getRed(int x, int y) {
+        return average(index(x, y), 0);
+    }
+
+    /**
+     * Returns the green component of the color of a pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the average green component of the samples of the pixel (0 for a pixel which was not rendered)
+     */
+    public float getGreen(int x, int y) {
+        return average(index(x, y), 1);
+    }
+
+    /**
+     * Returns the blue component of the color of a pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the average blue component of the samples of the pixel (0 for a pixel which was not rendered)
+     */
+    public float getBlue(int x, int y) {
+        return average(index(x, y), 2);
+    }
+
+    /**
+     * Returns the color of a pixel clamped and quantized to 8 bits per component
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the RGB value of the color of the pixel
+     */
+    public int getRGB(int x, int y) {
+        long pixel = index(x, y);
+        return quantize(average(pixel, 0)) << 16 | quantize(average(pixel, 1)) << 8 | quantize(average(pixel, 2));
+    }
+
+    /**
+     * Calculates the average of a component of the samples of a pixel
+     * @param pixel     the index of the first float of the pixel
+     * @param component the component - 0 for red, 1 for green and 2 for blue
+     * @return the average of the component
+     */
+    private float average(long pixel, int component) {
+        float samples = load(pixel + SAMPLES);
+        return samples == 0 ? 0 : load(pixel + component) / samples;
+    }
+
+    /**
+     * Quantizes a color component to 8 bits, setting any component bigger than 255 to 255
+     * @param component the color component
+     * @return the quantized component
+     */
+    private static int quantize(float component) {
+        return Math.min((int) component, 255);
+    }
+}
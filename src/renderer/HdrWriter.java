@@ -0,0 +1,163 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/** HdrWriter class writes the linear colors of a frame buffer into high dynamic range image files -
+ * PFM (portable float map) and Radiance HDR (RGBE with run length encoding). The colors are written
+ * as they are, without clamping, scaled so that the printed white (255) is 1.<br/>
+ * The files are streamed through a file channel one row of pixels at a time, so no full size copy of
+ * the image is created on the heap, whatever its size
+ * @author Zili */
+public final class HdrWriter {
+    /** The color component of the printed white, which is 1 in the high dynamic range files */
+    private static final float WHITE = 255;
+    /** The shortest run of equal bytes which is encoded as a run in a Radiance file */
+    private static final int MIN_RUN = 4;
+    /** The longest run of equal bytes (or of different bytes) in a Radiance file */
+    private static final int MAX_RUN = 127;
+    /** The narrowest and the widest images whose rows are run length encoded in a Radiance file */
+    private static final int MIN_RLE_WIDTH = 8, MAX_RLE_WIDTH = 0x7fff;
+
+    /** Don't let anyone instantiate this class. */
+    private HdrWriter() {}
+
+    /** Writes a frame buffer into a PFM file - a header and three little endian floats per pixel,
+     * row after row from the bottom row to the top row
+     * @param frameBuffer the frame buffer
+     * @param path        the path of the file
+     * @throws IOException if the file cannot be written */
+    public static void writePfm(FrameBuffer frameBuffer, Path path) throws IOException {
+        int nX = frameBuffer.getNx(), nY = frameBuffer.getNy();
+        try (FileChannel channel = open(path)) {
+            writeFully(channel, header("PF\n" + nX + " " + nY + "\n-1.0\n"));
+            ByteBuffer row = ByteBuffer.allocate(12 * nX).order(ByteOrder.LITTLE_ENDIAN);
+            for (int y = nY - 1; y >= 0; --y) {
+                row.clear();
+                for (int x = 0; x < nX; ++x)
+                    row.putFloat(frameBuffer.getRed(x, y) / WHITE).putFloat(frameBuffer.getGreen(x, y) / WHITE)
+                            .putFloat(frameBuffer.getBlue(x, y) / WHITE);
+                writeFully(channel, row.flip());
+            }
+        }
+    }
+
+    /** Writes a frame buffer into a Radiance HDR file - a header and four bytes per pixel (a shared exponent
+     * and a mantissa of each component), row after row from the top row. The rows are run length encoded
+     * (each of the four bytes separately) unless the image is too narrow or too wide for it
+     * @param frameBuffer the frame buffer
+     * @param path        the path of the file
+     * @throws IOException if the file cannot be written */
+    public static void writeRadiance(FrameBuffer frameBuffer, Path path) throws IOException {
+        int nX = frameBuffer.getNx(), nY = frameBuffer.getNy();
+        boolean encoded = nX >= MIN_RLE_WIDTH && nX <= MAX_RLE_WIDTH;
+        try (FileChannel channel = open(path)) {
+            writeFully(channel, header("#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y " + nY + " +X " + nX + "\n"));
+            // the four bytes of the pixels of a row, and the row as written (an encoding may grow by a byte per run)
+            byte[][] rgbe = new byte[4][nX];
+            ByteBuffer row = ByteBuffer.allocate(4 + 4 * (nX + nX / MAX_RUN + 1));
+            for (int y = 0; y < nY; ++y) {
+                for (int x = 0; x < nX; ++x)
+                    toRgbe(frameBuffer.getRed(x, y) / WHITE, frameBuffer.getGreen(x, y) / WHITE,
+                            frameBuffer.getBlue(x, y) / WHITE, rgbe, x);
+                row.clear();
+                if (encoded) {
+                    row.put((byte) 2).put((byte) 2).put((byte) (nX >> 8)).put((byte) nX);
+                    for (byte[] component : rgbe)
+                        encode(component, row);
+                } else
+                    for (int x = 0; x < nX; ++x)
+                        row.put(rgbe[0][x]).put(rgbe[1][x]).put(rgbe[2][x]).put(rgbe[3][x]);
+                writeFully(channel, row.flip());
+            }
+        }
+    }
+
+    /** Converts a color to the RGBE representation - a mantissa byte of each component and a shared
+     * exponent byte, which is the exponent of the largest component
+     * @param r    the red component
+     * @param g    the green component
+     * @param b    the blue component
+     * @param rgbe the bytes of the pixels of a row, by the component
+     * @param x    the column of the pixel */
+    private static void toRgbe(float r, float g, float b, byte[][] rgbe, int x) {
+        float max = Math.max(r, Math.max(g, b));
+        if (max < 1e-32f) {
+            rgbe[0][x] = rgbe[1][x] = rgbe[2][x] = rgbe[3][x] = 0;
+            return;
+        }
+        // max = m * 2^e where 0.5 <= m < 1, and the mantissas are the components scaled by 256 / 2^e
+        int exponent = Math.getExponent(max) + 1;
+        float scale = Math.scalb(256f, -exponent);
+        rgbe[0][x] = (byte) (int) (r * scale);
+        rgbe[1][x] = (byte) (int) (g * scale);
+        rgbe[2][x] = (byte) (int) (b * scale);
+        rgbe[3][x] = (byte) (exponent + 128);
+    }
+
+    /** Encodes the bytes of a component of a row - runs of at least four equal bytes are written as
+     * a count (above 128) and the byte, and the other bytes are written as a count and the bytes
+     * @param data the bytes of the component
+     * @param row  the buffer of the encoded row */
+    private static void encode(byte[] data, ByteBuffer row) {
+        int length = data.length;
+        int current = 0;
+        while (current < length) {
+            // find the next run of at least four equal bytes, if there is one
+            int runStart = current, runLength = 0, lastLength = 0;
+            while (runLength < MIN_RUN && runStart < length) {
+                runStart += runLength;
+                lastLength = runLength;
+                runLength = 1;
+                while (runStart + runLength < length && runLength < MAX_RUN
+                        && data[runStart] == data[runStart + runLength])
+                    ++runLength;
+            }
+            // the bytes before the run are a shorter run
+            if (lastLength > 1 && lastLength == runStart - current) {
+                row.put((byte) (128 + lastLength)).put(data[current]);
+                current = runStart;
+            }
+            // the bytes before the run
+            while (current < runStart) {
+                int count = Math.min(runStart - current, 128);
+                row.put((byte) count).put(data, current, count);
+                current += count;
+            }
+            if (runLength >= MIN_RUN) {
+                row.put((byte) (128 + runLength)).put(data[runStart]);
+                current += runLength;
+            }
+        }
+    }
+
+    /** Opens a file for writing, replacing the file if it exists
+     * @param path the path of the file
+     * @return the channel of the file
+     * @throws IOException if the file cannot be opened */
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /** Creates a buffer of the ASCII header of a file
+     * @param header the header
+     * @return the buffer, ready for writing */
+    private static ByteBuffer header(String header) {
+        return ByteBuffer.wrap(header.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /** Writes all the bytes of a buffer into a channel
+     * @param channel the channel
+     * @param buffer  the buffer
+     * @throws IOException if the bytes cannot be written */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
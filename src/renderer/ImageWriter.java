@@ -3,6 +3,7 @@ package renderer;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,7 +14,9 @@ import primitives.Color;
 /** Image writer class combines accumulation of pixel color matrix and finally
  * producing a non-optimized jpeg image from this matrix. The class although is
  * responsible of holding image related parameters of View Plane - pixel matrix
- * size and resolution
+ * size and resolution<br/>
+ * The pixels are kept in full precision in a {@link FrameBuffer}, and are clamped
+ * and quantized to 8 bits only once, when the image is produced
  * @author Dan */
 public class ImageWriter {
     /** Horizontal resolution of the image - number of pixels in row */
@@ -25,8 +28,11 @@ public class ImageWriter {
      * directory */
     private static final String FOLDER_PATH = System.getProperty("user.dir") + "/images";
 
+    /** Directory path of the generated image files (the default directory unless set otherwise) */
+    private String              folderPath  = FOLDER_PATH;
+
     /** Image generation buffer (the matrix of the pixels) */
-    private BufferedImage       image;
+    private final FrameBuffer   frameBuffer;
     /** image file name, not including the file extension '.png' */
     private String              imageName;
     /** logger for reporting I/O failures */
@@ -42,7 +48,18 @@ public class ImageWriter {
         this.nX        = nX;
         this.nY        = nY;
 
-        image          = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        frameBuffer    = new FrameBuffer(nX, nY);
+    }
+
+    /** Image Writer constructor accepting image name and the frame buffer of the image, for example
+     * a {@link MappedFrameBuffer} of an image too large for the heap
+     * @param imageName   the name of png file
+     * @param frameBuffer the frame buffer of the image */
+    public ImageWriter(String imageName, FrameBuffer frameBuffer) {
+        this.imageName   = imageName;
+        this.nX          = frameBuffer.getNx();
+        this.nY          = frameBuffer.getNy();
+        this.frameBuffer = frameBuffer;
     }
 
     // ***************** Getters/Setters ********************** //
@@ -54,28 +71,117 @@ public class ImageWriter {
      * @return the amount of horizontal pixels */
     public int getNx() { return nX; }
 
+    /** The frame buffer of the image, holding the pixels in full precision
+     * @return the frame buffer */
+    public FrameBuffer getFrameBuffer() { return frameBuffer; }
+
+    /** Sets the directory of the generated image files, instead of the images directory
+     * in the user directory
+     * @param  folderPath the directory path
+     * @return            the image writer */
+    public ImageWriter setFolderPath(String folderPath) {
+        if (folderPath == null)
+            throw new IllegalArgumentException("Folder path must not be null");
+        this.folderPath = folderPath;
+        return this;
+    }
+
     // ***************** Operations ******************** //
 
     /** Function writeToImage produces unoptimized png file of the image according
      * to
-     * pixel color matrix in the directory of the project */
+     * pixel color matrix in the directory of the project. The pixels are streamed
+     * into the file row after row (see {@link PngWriter}), so an image of any size
+     * can be written */
     public void writeToImage() {
         try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+            PngWriter.write(frameBuffer, Path.of(folderPath, imageName + ".png"));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + folderPath, e);
+        }
+    }
+
+    /** Function writeToPfm produces a PFM (portable float map) file of the linear colors
+     * of the frame buffer, without clamping them, in the directory of the images
+     * (see {@link HdrWriter#writePfm(FrameBuffer, Path)}) */
+    public void writeToPfm() {
+        try {
+            HdrWriter.writePfm(frameBuffer, Path.of(folderPath, imageName + ".pfm"));
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
-            throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
+            throw new IllegalStateException("I/O error - may be missing directory " + folderPath, e);
         }
     }
 
+    /** Function writeToHdr produces a Radiance HDR file of the linear colors of the
+     * frame buffer, without clamping them, in the directory of the images
+     * (see {@link HdrWriter#writeRadiance(FrameBuffer, Path)}) */
+    public void writeToHdr() {
+        try {
+            HdrWriter.writeRadiance(frameBuffer, Path.of(folderPath, imageName + ".hdr"));
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + folderPath, e);
+        }
+    }
+
+    /** Function getImage produces an image of the current pixels of the frame buffer,
+     * clamped and quantized to 8 bits per component (for showing it - the image is
+     * created in full size on the heap)
+     * @return the image */
+    public BufferedImage getImage() {
+        BufferedImage image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                image.setRGB(x, y, frameBuffer.getRGB(x, y));
+        return image;
+    }
+
+    /** Function writeHeatmap produces a png file of a false color map of a cost of the pixels of a
+     * rendering, next to the image file (the name of the cost is added to the image name). The cheapest
+     * pixels are blue, and through cyan, green and yellow the most expensive pixels are red
+     * @param statistics the statistics of the rendering
+     * @param counter    the cost to map */
+    public void writeHeatmap(RenderStatistics statistics, RenderStatistics.Counter counter) {
+        int width = statistics.getNx(), height = statistics.getNy();
+        BufferedImage heatmap = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        double max = Math.max(1, statistics.getMax(counter));
+        for (int y = 0; y < height; ++y)
+            for (int x = 0; x < width; ++x)
+                heatmap.setRGB(x, y, heatColor(statistics.get(counter, x, y) / max));
+        try {
+            File file = new File(folderPath + '/' + imageName + '-' + counter.name().toLowerCase() + ".png");
+            ImageIO.write(heatmap, "png", file);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - may be missing directory " + folderPath, e);
+        }
+    }
+
+    /** Maps a relative cost to a false color - blue, cyan, green, yellow and red for 0, 0.25, 0.5, 0.75 and 1
+     * @param value the cost relative to the highest cost, between 0 and 1
+     * @return the RGB value of the color */
+    private static int heatColor(double value) {
+        double segment = Math.min(value, 1) * 4;
+        int step = (int) Math.min(segment, 3);
+        int rise = (int) Math.round((segment - step) * 255);
+        int fall = 255 - rise;
+        return switch (step) {
+            case 0 -> rise << 8 | 255; // blue to cyan
+            case 1 -> 255 << 8 | fall; // cyan to green
+            case 2 -> rise << 16 | 255 << 8; // green to yellow
+            default -> 255 << 16 | fall << 8; // yellow to red
+        };
+    }
+
     /** The function writePixel writes a color of a specific pixel into pixel color
      * matrix
      * @param xIndex X axis index of the pixel
      * @param yIndex Y axis index of the pixel
      * @param color  final color of the pixel */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        frameBuffer.set(xIndex, yIndex, color);
     }
 
 }
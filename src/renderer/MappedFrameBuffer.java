@@ -0,0 +1,133 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A frame buffer kept out of the heap, in a raw raster file mapped to memory - the four floats of every
+ * pixel (in the native byte order), row after row. The operating system pages the finished tiles out
+ * to the file and pages in only the tiles being rendered or written, so the memory used by a rendering
+ * is bounded by the tiles in work and not by the size of the image, and images much larger than the heap
+ * (for example 50000 x 50000 pixels) can be rendered.<br/>
+ * The file is mapped in bands of whole rows, because a single mapping is limited to 2GB.<br/>
+ * The mappings are held until the buffer is closed. Java has no explicit unmapping, so even after
+ * {@link #close()} the memory and the file are released only when the garbage collector collects the
+ * dropped mappings - until then the file may not be deleted or replaced on some systems (Windows)
+ * @author Zili
+ */
+public class MappedFrameBuffer extends FrameBuffer implements AutoCloseable {
+    /** The largest size in bytes of a mapped band */
+    private static final long MAX_BAND = Integer.MAX_VALUE;
+
+    /** The mapped bands of rows of the file */
+    private final MappedByteBuffer[] mappings;
+    /** The floats of the bands */
+    private final FloatBuffer[] bands;
+    /** The amount of floats in a band (the last band may be shorter) */
+    private final long bandFloats;
+    /** Flag of a closed buffer, whose mappings are dropped */
+    private boolean closed = false;
+
+    /**
+     * Constructs an empty (black) frame buffer of an image in a file, replacing the file if it exists
+     * @param nX   amount of pixels by width
+     * @param nY   amount of pixels by height
+     * @param path the path of the raster file
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public MappedFrameBuffer(int nX, int nY, Path path) throws IOException {
+        this(nX, nY, path, MAX_BAND);
+    }
+
+    /**
+     * Constructs an empty (black) frame buffer of an image in a file mapped in bands of a given size
+     * @param nX      amount of pixels by width
+     * @param nY      amount of pixels by height
+     * @param path    the path of the raster file
+     * @param maxBand the largest size in bytes of a mapped band
+     * @throws IOException if the file cannot be created or mapped
+     */
+    MappedFrameBuffer(int nX, int nY, Path path, long maxBand) throws IOException {
+        super(nX, nY, false);
+        long rowBytes = (long) CHANNELS * Float.BYTES * nX;
+        if (rowBytes > maxBand)
+            throw new IllegalArgumentException("The rows of the image are too long for mapping");
+        int bandRows = (int) Math.min(nY, maxBand / rowBytes);
+        bandFloats = (long) bandRows * CHANNELS * nX;
+
+        int count = (nY + bandRows - 1) / bandRows;
+        mappings = new MappedByteBuffer[count];
+        bands = new FloatBuffer[count];
+        // a new file is filled with zeros, and the mappings remain valid after the channel is closed (until
+        // they are collected)
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (int band = 0; band < count; ++band) {
+                long start = band * bandRows * rowBytes;
+                long size = Math.min(bandRows, nY - (long) band * bandRows) * rowBytes;
+                mappings[band] = channel.map(FileChannel.MapMode.READ_WRITE, start, size);
+                bands[band] = mappings[band].order(ByteOrder.nativeOrder()).asFloatBuffer();
+            }
+        }
+    }
+
+    /**
+     * Finds the band of a float of the raster
+     * @param index the index of the float in the raster
+     * @return the band holding the float
+     * @throws IllegalStateException if the buffer is closed
+     */
+    private FloatBuffer band(long index) {
+        if (closed)
+            throw new IllegalStateException("The frame buffer is closed");
+        return bands[(int) (index / bandFloats)];
+    }
+
+    @Override
+    protected float load(long index) {
+        return band(index).get((int) (index % bandFloats));
+    }
+
+    @Override
+    protected void store(long index, float value) {
+        band(index).put((int) (index % bandFloats), value);
+    }
+
+    @Override
+    public void clear() {
+        if (closed)
+            throw new IllegalStateException("The frame buffer is closed");
+        for (FloatBuffer band : bands)
+            for (int i = 0; i < band.capacity(); ++i)
+                band.put(i, 0);
+    }
+
+    /**
+     * Writes the changed pages of the mapped file to the storage device
+     */
+    public void force() {
+        if (closed)
+            throw new IllegalStateException("The frame buffer is closed");
+        for (MappedByteBuffer mapping : mappings)
+            mapping.force();
+    }
+
+    /**
+     * Closes the buffer and drops its mappings, so they can be collected and the file released. The
+     * changed pages are written to the file by the operating system (use {@link #force()} before closing
+     * for writing them immediately). The buffer must not be used by rendering threads while it is closed,
+     * and closing a closed buffer has no effect
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Arrays.fill(mappings, null);
+        Arrays.fill(bands, null);
+    }
+}
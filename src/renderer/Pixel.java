@@ -1,126 +1,185 @@
 package renderer;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Pixel is a helper class. It is used for multi-threading in the renderer and
  * for follow up its progress.<br/>
- * There is a main follow up object and several secondary objects - one in each
- * thread.
+ * There is a main follow up object for each rendered image, shared by the rendering
+ * threads, and a secondary {@link Cursor} object in each thread.<br/>
+ * The pixels are handed out in square tiles without locks - the next tile is taken from an
+ * atomic counter and the processed pixels are counted by a {@link LongAdder}, so several
+ * images can be rendered at the same time, each with its own follow up object.<br/>
+ * A rendering can be stopped before all the pixels are processed - the threads get no more
+ * pixels once the stop flag is set, or once the deadline of the rendering has passed.
  *
  */
 class Pixel {
+    /** Default width and height of a tile of pixels */
+    static final int DEFAULT_TILE_SIZE = 16;
+    /** Deadline of a rendering without a time limit */
+    static final long NO_DEADLINE = Long.MAX_VALUE;
+    /** Printing format */
+    private static final String PRINT_FORMAT = "%5.1f%%\r";
+
     /** Maximum rows of pixels */
-    private static int maxRows = 0;
+    private final int maxRows;
     /** Maximum columns of pixels */
-    private static int maxCols = 0;
+    private final int maxCols;
     /** Total amount of pixels in the generated image */
-    private static long totalPixels = 0l;
-    /** Currently processed row of pixels */
-    private static volatile int cRow = 0;
-    /** Currently processed column of pixels */
-    private static volatile int cCol = -1;
+    private final long totalPixels;
+    /** Width and height of a tile of pixels */
+    private final int tileSize;
+    /** Amount of tiles in a row of tiles */
+    private final int tileCols;
+    /** Total amount of tiles in the generated image */
+    private final int totalTiles;
+    /** Next tile to be allocated */
+    private final AtomicInteger cTile = new AtomicInteger();
     /** Amount of pixels that have been processed */
-    private static volatile long pixels = 0l;
-    private static volatile long last = -1l;
+    private final LongAdder pixels = new LongAdder();
+    /** Stop flag - set when the rendering is cancelled or its time is up (may be shared by several passes) */
+    private final AtomicBoolean stopped;
+    /** The {@link System#nanoTime()} when the rendering is stopped, or {@link #NO_DEADLINE} */
+    private final long deadline;
+    private long last = -1l;
     /** Last printed progress update percentage */
-    private static volatile int lastPrinted = -1;
+    private int lastPrinted = -1;
     /** Flag of debug printing of progress percentage */
-    private static boolean print = false;
+    private final boolean print;
     /** Progress percentage printing interval */
-    private static long printInterval = 100l;
-    /** Printing format */
-    private static final String PRINT_FORMAT = "%5.1f%%\r";
-    /** Mutual exclusion object for synchronizing next pixel allocation between threads */
-    private static Object mutexNext = new Object();
-    /** Mutual exclusion object for printing progress percentage in console window
-     * by different threads */
-    private static Object mutexPixels = new Object();
+    private final long printInterval;
 
-    int row;
-    int col;
+    /**
+     * Initialize pixel data for multi-threading, handing the pixels out in square tiles
+     *
+     * @param maxRows  the amount of pixel rows
+     * @param maxCols  the amount of pixel columns
+     * @param interval print time interval in seconds, 0 if printing is not required
+     * @param tileSize the width and height of a tile in pixels
+     */
+    Pixel(int maxRows, int maxCols, double interval, int tileSize) {
+        this(maxRows, maxCols, interval, tileSize, new AtomicBoolean(), NO_DEADLINE);
+    }
 
     /**
-     * Initialize pixel data for multi-threading
+     * Initialize pixel data for multi-threading, handing the pixels out in square tiles until
+     * a given stop flag is set or a given deadline has passed
      *
      * @param maxRows  the amount of pixel rows
      * @param maxCols  the amount of pixel columns
      * @param interval print time interval in seconds, 0 if printing is not required
+     * @param tileSize the width and height of a tile in pixels
+     * @param stopped  the stop flag of the rendering
+     * @param deadline the {@link System#nanoTime()} when the rendering is stopped, or
+     *                 {@link #NO_DEADLINE}
      */
-    static void initialize(int maxRows, int maxCols, double interval) {
-        Pixel.maxRows = maxRows;
-        Pixel.maxCols = maxCols;
-        Pixel.totalPixels = (long) maxRows * maxCols;
-        cRow = 0;
-        cCol = -1;
-        pixels = 0;
-        printInterval = (int) (interval * 1000);
+    Pixel(int maxRows, int maxCols, double interval, int tileSize, AtomicBoolean stopped, long deadline) {
+        this.stopped = stopped;
+        this.deadline = deadline;
+        this.maxRows = maxRows;
+        this.maxCols = maxCols;
+        this.totalPixels = (long) maxRows * maxCols;
+        this.tileSize = tileSize;
+        tileCols = (maxCols + tileSize - 1) / tileSize;
+        totalTiles = tileCols * ((maxRows + tileSize - 1) / tileSize);
+        printInterval = (long) (interval * 1000);
         print = printInterval != 0;
-        last = -1l;
     }
 
     /**
-     * Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and static data is the
-     * shared data of this critical section.<br/>
-     * The function provides next available pixel number each call.
+     * Creates a secondary follow up object for a rendering thread
      *
-     * @return true if next pixel is allocated, false if there are no more pixels
+     * @return a new cursor over the pixels of the image
      */
-    public boolean nextPixel() {
-        synchronized (mutexNext) {
-            if (cRow == maxRows)//the current row  has reached the maximum number of rows
-                return false;//there are no more pixels to allocate
-            ++cCol;//moving to the next pixel in the current row
-            if (cCol < maxCols) {
-                row = cRow;
-                col = cCol;
-                return true;//indicating that a new pixel has been allocated.
-            }
-            cCol = 0;
-            ++cRow;//moving to the next row
-            if (cRow < maxRows) {
-                row = cRow;
-                col = cCol;
-                return true;
-            }
-            return false;
-        }
+    Cursor cursor() {
+        return new Cursor();
     }
 
     /**
      * Finish pixel processing
      */
-    static void pixelDone() {
-        synchronized (mutexPixels) {//This ensures that only one thread at a time can execute this block of code
-            ++pixels;
-        }
+    void pixelDone() {
+        pixels.increment();
+    }
+
+    /**
+     * Finish processing of a group of pixels
+     *
+     * @param amount the amount of processed pixels
+     */
+    void pixelsDone(long amount) {
+        pixels.add(amount);
+    }
+
+    /**
+     * Checks whether all the pixels have been processed
+     *
+     * @return true if all the pixels are done
+     */
+    boolean isDone() {
+        return pixels.sum() >= totalPixels;
     }
 
     /**
-     * Wait for all pixels to be done and print the progress percentage - must be
-     * run from the main thread
+     * Stops the rendering - the threads get no more pixels
      */
-    public static void waitToFinish() {
-        if (print)
-            System.out.printf(PRINT_FORMAT, 0d);//print initial progress (0%)
+    void stop() {
+        stopped.set(true);
+    }
 
-        while (last < totalPixels) {//the number of processed pixels is less than the total number of pixels to be processed
-            printPixel();
+    /**
+     * Checks whether the rendering was stopped - a rendering whose deadline has passed is
+     * stopped by the check
+     *
+     * @return true if the rendering was stopped
+     */
+    boolean isStopped() {
+        if (stopped.get())
+            return true;
+        if (deadline == NO_DEADLINE || System.nanoTime() - deadline < 0)
+            return false;
+        stopped.set(true);
+        return true;
+    }
+
+    /**
+     * Wait for the rendering to finish and print the progress percentage meanwhile - must be
+     * run from the main thread. The waiting thread is woken by the completion of the rendering
+     * (or every print interval for printing the progress), without polling the pixels
+     *
+     * @param rendering the completion of the rendering threads
+     * @throws InterruptedException if the waiting thread was interrupted
+     * @throws ExecutionException   if the rendering failed
+     */
+    void waitToFinish(Future<?> rendering) throws InterruptedException, ExecutionException {
+        if (!print) {
+            rendering.get();
+            return;
+        }
+        System.out.printf(PRINT_FORMAT, 0d);//print initial progress (0%)
+        while (true)
             try {
-                Thread.sleep(printInterval);
-            } catch (InterruptedException ignore) {
-                if (print)
-                    System.out.print("");
+                rendering.get(printInterval, TimeUnit.MILLISECONDS);
+                break;
+            } catch (TimeoutException e) {
+                printPixel();
             }
-        }
-        if (print)
+        if (isDone())
             System.out.println("100.0%");
     }
 
     /**
      * Print pixel progress percentage
      */
-    public static void printPixel() {
-        long current = pixels;
+    void printPixel() {
+        long current = pixels.sum();
         if (print && last != current) {// progress should be printed
             int percentage = (int) (1000l * current / totalPixels);//This calculates the progress percentage. The current number of processed pixels is multiplied by 1000
             //and then divided by the total number of pixels
@@ -131,10 +190,49 @@ class Pixel {
             }
         }
     }
-}
-
-
 
+    /**
+     * The secondary follow up object of a rendering thread - holds the current pixel of
+     * the thread and the tile it belongs to
+     */
+    class Cursor {
+        int row;
+        int col;
 
+        /** First row of the current tile of the thread */
+        private int tileRow = 0;
+        /** First column of the current tile of the thread */
+        private int tileCol = 0;
+        /** Row after the last row of the current tile of the thread */
+        private int tileRowEnd = 0;
+        /** Column after the last column of the current tile of the thread */
+        private int tileColEnd = 0;
 
+        /**
+         * The function provides next available pixel number each call. The pixels of a tile are
+         * provided row by row, and only when the tile is finished the next tile is taken from
+         * the shared atomic tile counter
+         *
+         * @return true if next pixel is allocated, false if there are no more pixels
+         */
+        boolean nextPixel() {
+            if (isStopped())//the rendering was stopped
+                return false;
+            // next pixel in the current tile of this thread
+            if (++col < tileColEnd) return true;
+            col = tileCol;
+            if (++row < tileRowEnd) return true;
 
+            int tile = cTile.getAndIncrement();
+            if (tile >= totalTiles)//all the tiles have been allocated
+                return false;//there are no more pixels to allocate
+            tileRow = tile / tileCols * tileSize;
+            tileCol = tile % tileCols * tileSize;
+            tileRowEnd = Math.min(tileRow + tileSize, maxRows);
+            tileColEnd = Math.min(tileCol + tileSize, maxCols);
+            row = tileRow;
+            col = tileCol;
+            return true;//indicating that a new pixel has been allocated.
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package renderer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/** PngWriter class writes the colors of a frame buffer into a PNG file, clamped and quantized to 8 bits
+ * per component. The rows are compressed one at a time and streamed through a file channel in chunks of
+ * a fixed size, so no image of the size of the frame buffer is created on the heap, whatever its size
+ * @author Zili */
+public final class PngWriter {
+    /** The signature of PNG files */
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+    /** The filter of the rows - each byte is written as its difference from the byte of the pixel to its left */
+    private static final byte SUB_FILTER = 1;
+    /** The size of the compressed data chunks */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    /** Don't let anyone instantiate this class. */
+    private PngWriter() {}
+
+    /** Writes a frame buffer into a PNG file of 8 bit RGB pixels
+     * @param frameBuffer the frame buffer
+     * @param path        the path of the file
+     * @throws IOException if the file cannot be written */
+    public static void write(FrameBuffer frameBuffer, Path path) throws IOException {
+        int nX = frameBuffer.getNx(), nY = frameBuffer.getNy();
+        Deflater deflater = new Deflater();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(SIGNATURE));
+            // width, height, 8 bits per component, RGB, deflate compression, adaptive filtering, no interlace
+            ByteBuffer header = ByteBuffer.allocate(13).putInt(nX).putInt(nY)
+                    .put((byte) 8).put((byte) 2).put((byte) 0).put((byte) 0).put((byte) 0);
+            writeChunk(channel, "IHDR", header.array(), 13);
+
+            byte[] row = new byte[1 + 3 * nX];
+            row[0] = SUB_FILTER;
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int filled = 0;
+            for (int y = 0; y < nY; ++y) {
+                int left = 0;
+                for (int x = 0, i = 1; x < nX; ++x, i += 3) {
+                    int rgb = frameBuffer.getRGB(x, y);
+                    row[i] = (byte) ((rgb >> 16) - (left >> 16));
+                    row[i + 1] = (byte) ((rgb >> 8) - (left >> 8));
+                    row[i + 2] = (byte) (rgb - left);
+                    left = rgb;
+                }
+                deflater.setInput(row);
+                while (!deflater.needsInput())
+                    filled = deflate(channel, deflater, chunk, filled);
+            }
+            deflater.finish();
+            while (!deflater.finished())
+                filled = deflate(channel, deflater, chunk, filled);
+            if (filled > 0)
+                writeChunk(channel, "IDAT", chunk, filled);
+            writeChunk(channel, "IEND", chunk, 0);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Compresses more of the rows into the chunk of compressed data, and writes the chunk when it is full
+     * @param channel  the channel of the file
+     * @param deflater the compressor
+     * @param chunk    the chunk of compressed data
+     * @param filled   the amount of compressed bytes in the chunk
+     * @return the amount of compressed bytes in the chunk after compressing
+     * @throws IOException if the chunk cannot be written */
+    private static int deflate(FileChannel channel, Deflater deflater, byte[] chunk, int filled) throws IOException {
+        filled += deflater.deflate(chunk, filled, chunk.length - filled);
+        if (filled < chunk.length)
+            return filled;
+        writeChunk(channel, "IDAT", chunk, filled);
+        return 0;
+    }
+
+    /** Writes a chunk of the file - its length, its type, its data and the checksum of the type and the data
+     * @param channel the channel of the file
+     * @param type    the type of the chunk
+     * @param data    the data of the chunk
+     * @param length  the length of the data
+     * @throws IOException if the chunk cannot be written */
+    private static void writeChunk(FileChannel channel, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        writeFully(channel, ByteBuffer.allocate(8).putInt(length).put(typeBytes).flip());
+        writeFully(channel, ByteBuffer.wrap(data, 0, length));
+        writeFully(channel, ByteBuffer.allocate(4).putInt((int) crc.getValue()).flip());
+    }
+
+    /** Writes all the bytes of a buffer into a channel
+     * @param channel the channel
+     * @param buffer  the buffer
+     * @throws IOException if the bytes cannot be written */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+}
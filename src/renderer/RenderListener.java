@@ -0,0 +1,19 @@
+package renderer;
+
+/**
+ * A listener to the passes of the renderings of a camera, for showing the image while it is refined.
+ * A progressive rendering calls the listeners after every pass of samples it adds to the image, and
+ * a regular rendering calls them once when the image is done
+ * @author Zili
+ */
+@FunctionalInterface
+public interface RenderListener {
+    /**
+     * Called after a pass of a rendering is completed, with the image as it is after the pass. The
+     * listener is called by the rendering thread which completed the pass, and the next pass starts
+     * only when it returns
+     * @param imageWriter the image writer holding the current image
+     * @param samples     the amount of samples per pixel in the current image
+     */
+    void passCompleted(ImageWriter imageWriter, int samples);
+}
@@ -0,0 +1,208 @@
+package renderer;
+
+import geometries.Intersectable;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation of a rendered image - the cost of every pixel: the rays traced for it by kind,
+ * the intersection tests of the rays with the geometries, and the wall time it took.
+ * The statistics are collected by a camera rendering with instrumentation turned on, and the costs of
+ * all the passes of a progressive or time-budgeted rendering over a pixel are added together. The ray
+ * tracer reports the rays to the counters of the current thread, which cost a single read of a
+ * field while no instrumented rendering is in progress, so the instrumentation stays compiled
+ * in without slowing down the regular renderings.<br/>
+ * The costs of each pixel are kept in arrays on the heap, so the statistics are limited to images of up to
+ * {@link Integer#MAX_VALUE} pixels (a little less than 46341 x 46341)
+ * @author Zili
+ */
+public class RenderStatistics {
+
+    /**
+     * The kinds of the costs counted for each pixel
+     */
+    public enum Counter {
+        /** Rays from the camera (a few per pixel with antialiasing) */
+        PRIMARY_RAYS,
+        /** Rays from the shaded points towards the light sources */
+        SHADOW_RAYS,
+        /** Reflected rays */
+        REFLECTED_RAYS,
+        /** Refracted rays */
+        REFRACTED_RAYS,
+        /** Intersection tests of rays with single geometries (or faces of meshes) */
+        INTERSECTION_TESTS,
+        /** Wall time in nanoseconds */
+        NANOSECONDS
+    }
+
+    /** The counters of the rays which are counted by the ray tracer */
+    private static final int RAY_COUNTERS = 4;
+
+    /**
+     * The amount of the instrumented renderings in progress - the rays are counted only while it is positive
+     */
+    private static volatile int active = 0;
+
+    /**
+     * The counters of the pixel rendered by each thread
+     */
+    private static final ThreadLocal<Probe> PROBES = ThreadLocal.withInitial(Probe::new);
+
+    /**
+     * The counters of the pixel currently rendered by a thread
+     */
+    private static class Probe {
+        /** The amount of rays of each kind counted for the pixel */
+        final long[] rays = new long[RAY_COUNTERS];
+        /** The amount of intersection tests made by the thread when the pixel was started */
+        long tests;
+        /** The time when the pixel was started */
+        long start;
+    }
+
+    /** Horizontal resolution of the image */
+    private final int nX;
+    /** Vertical resolution of the image */
+    private final int nY;
+    /** The largest amount of pixels of an image whose statistics can be collected */
+    private static final long MAX_PIXELS = Integer.MAX_VALUE - 8;
+
+    /** The counts of each pixel (row after row) for each of the counters except the time */
+    private final long[][] counts;
+    /** The wall time of each pixel in nanoseconds (row after row) */
+    private final long[] times;
+
+    /**
+     * Constructs empty statistics of an image
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     * @throws IllegalArgumentException if the image has too many pixels for the statistics
+     */
+    public RenderStatistics(int nX, int nY) {
+        long pixels = (long) nX * nY;
+        if (pixels > MAX_PIXELS)
+            throw new IllegalArgumentException("The image is too large for render statistics");
+        this.nX = nX;
+        this.nY = nY;
+        counts = new long[Counter.NANOSECONDS.ordinal()][(int) pixels];
+        times = new long[(int) pixels];
+    }
+
+    /**
+     * Starts or stops counting the rays and the intersection tests of all the threads for an instrumented
+     * rendering. The calls are nested - the counting goes on until every start is matched by a stop
+     * @param counting true to start counting, false to stop
+     */
+    static synchronized void activate(boolean counting) {
+        active += counting ? 1 : -1;
+        Intersectable.countTests(counting);
+    }
+
+    /**
+     * Counts a ray traced by the current thread, if an instrumented rendering is in progress
+     * @param counter the kind of the ray, one of the ray counters
+     */
+    static void countRay(Counter counter) {
+        if (active > 0)
+            ++PROBES.get().rays[counter.ordinal()];
+    }
+
+    /**
+     * Starts measuring a pixel rendered by the current thread
+     */
+    void startPixel() {
+        Probe probe = PROBES.get();
+        Arrays.fill(probe.rays, 0);
+        probe.tests = Intersectable.getTestCount();
+        probe.start = System.nanoTime();
+    }
+
+    /**
+     * Adds the costs of the pixel rendered by the current thread since {@link #startPixel()} to the costs
+     * of the previous passes over the pixel
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     */
+    void endPixel(int x, int y) {
+        long end = System.nanoTime();
+        Probe probe = PROBES.get();
+        int pixel = index(x, y);
+        for (int c = 0; c < RAY_COUNTERS; ++c)
+            counts[c][pixel] += probe.rays[c];
+        counts[Counter.INTERSECTION_TESTS.ordinal()][pixel] += Intersectable.getTestCount() - probe.tests;
+        times[pixel] += end - probe.start;
+    }
+
+    /**
+     * Returns the index of a pixel in the arrays of the costs
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the index of the pixel (row after row), which fits an int since the amount of pixels is limited
+     */
+    private int index(int x, int y) {
+        return (int) ((long) y * nX + x);
+    }
+
+    /**
+     * Returns the horizontal resolution of the image
+     * @return the amount of pixels by width
+     */
+    public int getNx() { return nX; }
+
+    /**
+     * Returns the vertical resolution of the image
+     * @return the amount of pixels by height
+     */
+    public int getNy() { return nY; }
+
+    /**
+     * Returns a cost of a pixel
+     * @param counter the kind of the cost
+     * @param x       the column of the pixel
+     * @param y       the row of the pixel
+     * @return the cost of the pixel
+     */
+    public long get(Counter counter, int x, int y) {
+        int pixel = index(x, y);
+        return counter == Counter.NANOSECONDS ? times[pixel] : counts[counter.ordinal()][pixel];
+    }
+
+    /**
+     * Returns a cost of the whole image
+     * @param counter the kind of the cost
+     * @return the sum of the costs of all the pixels (for the time - the sum of the times of the pixels
+     * in all the threads, not the wall time of the rendering)
+     */
+    public long getTotal(Counter counter) {
+        long total = 0;
+        if (counter == Counter.NANOSECONDS)
+            for (long time : times)
+                total += time;
+        else
+            for (long count : counts[counter.ordinal()])
+                total += count;
+        return total;
+    }
+
+    /**
+     * Returns the highest cost of a pixel
+     * @param counter the kind of the cost
+     * @return the highest cost of a pixel in the image
+     */
+    public long getMax(Counter counter) {
+        long max = 0;
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                max = Math.max(max, get(counter, x, y));
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("Render statistics ").append(nX).append('x').append(nY).append(':');
+        for (Counter counter : Counter.values())
+            result.append(' ').append(counter.name().toLowerCase()).append('=').append(getTotal(counter));
+        return result.toString();
+    }
+}
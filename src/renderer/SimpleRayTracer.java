@@ -1,10 +1,12 @@
 package renderer;
 
-import geometries.Intersectable;
+import geometries.HitRecord;
 import lighting.LightSource;
 import primitives.*;
 import scene.Scene;
 import geometries.Intersectable.GeoPoint;
+
+import java.util.Arrays;
 import java.util.List;
 
 import static primitives.Util.alignZero;
@@ -22,11 +24,6 @@ import static primitives.Util.alignZero;
  */
 public class SimpleRayTracer extends RayTracerBase {
 
-    //Recursion stopping conditions for transparency
-    private static final int MAX_CALC_COLOR_LEVEL = 10;
-    //Stopping conditions of reflection recursion
-    private static final double MIN_CALC_COLOR_K = 0.001;
-
     private static final Double3 INIT_CALC_COLOR_K = Double3.ONE;
 
     /**
@@ -38,9 +35,54 @@ public class SimpleRayTracer extends RayTracerBase {
     // Constant for ray origin offset for shadows
     private static final double DELTA = 0.1;
 
+    // Hit record of each rendering thread, reused for all the rays traced by the thread
+    private final ThreadLocal<HitRecord> hitRecord = ThreadLocal.withInitial(HitRecord::new);
+
+    // Shading stack of each rendering thread, reused for all the rays traced by the thread
+    private final ThreadLocal<ShadingStack> shadingStack = ThreadLocal.withInitial(ShadingStack::new);
+
+    /**
+     * A preallocated stack of the secondary (reflected and refracted) rays waiting to be shaded.
+     * Each entry holds the closest intersection of the ray, the ray itself, the attenuation of its
+     * color along the way from the camera and the remaining level of secondary rays
+     */
+    private static class ShadingStack {
+        /** The closest intersections of the rays */
+        private GeoPoint[] points = new GeoPoint[16];
+        /** The rays */
+        private Ray[] rays = new Ray[16];
+        /** The attenuations of the colors of the rays */
+        private Double3[] attenuations = new Double3[16];
+        /** The remaining levels of the rays */
+        private int[] levels = new int[16];
+        /** The amount of the entries in the stack */
+        private int size = 0;
+
+        /**
+         * Pushes a ray to the stack, growing the stack if needed
+         * @param gp    the closest intersection of the ray
+         * @param ray   the ray
+         * @param k     the attenuation of the color of the ray
+         * @param level the remaining level of the ray
+         */
+        void push(GeoPoint gp, Ray ray, Double3 k, int level) {
+            if (size == points.length) {
+                points = Arrays.copyOf(points, 2 * size);
+                rays = Arrays.copyOf(rays, 2 * size);
+                attenuations = Arrays.copyOf(attenuations, 2 * size);
+                levels = Arrays.copyOf(levels, 2 * size);
+            }
+            points[size] = gp;
+            rays[size] = ray;
+            attenuations[size] = k;
+            levels[size++] = level;
+        }
+    }
+
 
     @Override
     public Color traceRay(Ray ray) {
+        RenderStatistics.countRay(RenderStatistics.Counter.PRIMARY_RAYS);
         GeoPoint closestPoint = findClosestIntersection(ray);
         return closestPoint==null ? scene.background: calcColor(closestPoint,ray);
     }
@@ -56,26 +98,45 @@ public class SimpleRayTracer extends RayTracerBase {
     }
 
     /**
-     * Calculates the color of a given point in the scene recursively.
+     * Calculates the color of a given point in the scene, including the reflected and refracted rays up to
+     * the maximal level of the scene. Instead of recursing for every secondary ray, the secondary rays are
+     * kept in the shading stack of the thread and shaded one after the other in a single loop - the color of
+     * each ray is its local effects attenuated by all the reflection and transparency coefficients on its way
+     * from the camera, and rays attenuated below the minimal coefficient of the scene are not traced.
      * @param geoPoint the point to calculate the color for
      * @param ray      the ray that intersects the point
      * @return the color at the given point
      */
     private Color calcColor(GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, INIT_CALC_COLOR_K).add(scene.ambientLight.getIntensity());
-    }
-    /**
-     * Calculates the color at a given point in the scene, taking into account local and global effects.
-     * @param geoPoint The geometric point in the scene.
-     * @param ray      The ray that intersects the geometric point.
-     * @param level    The recursion level for global effects.
-     * @param k        The coefficient values for global effects.
-     * @return The calculated color at the given point.
-     */
-    private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(geoPoint, ray,k);
-        return 1 == level ? color : color.add(calcGlobalEffects(geoPoint, ray, level, k));
+        ShadingStack stack = shadingStack.get();
+        int bottom = stack.size;
+        stack.push(geoPoint, ray, INIT_CALC_COLOR_K, scene.maxColorLevel);
+        Color color = Color.BLACK;
+        while (stack.size > bottom) {
+            int top = --stack.size;
+            GeoPoint gp = stack.points[top];
+            Ray r = stack.rays[top];
+            Double3 k = stack.attenuations[top];
+            int level = stack.levels[top];
+            stack.points[top] = null;
+            stack.rays[top] = null;
+
+            Color local = calcLocalEffects(gp, r, k);
+            color = color.add(k == INIT_CALC_COLOR_K ? local : local.scale(k));
+            if (level > 1) {
+                Vector v = r.getDirection();
+                Vector n = gp.getNormal();
+                Material material = gp.geometry.getMaterial();
+                //the refracted ray is pushed first, so the reflected ray is shaded first
+                color = calcGlobalEffect(stack, color, material.kT, k, level, constructRefractedRay(gp, v, n),
+                        RenderStatistics.Counter.REFRACTED_RAYS);
+                color = calcGlobalEffect(stack, color, material.kR, k, level, constructReflectedRay(gp, v, n),
+                        RenderStatistics.Counter.REFLECTED_RAYS);
+            }
+        }
+        return color.add(scene.ambientLight.getIntensity());
     }
+
     /**
      * Calculates the local effects of color at a point in the scene
      * @param gp  the geometry point to calculate color for
@@ -84,7 +145,7 @@ public class SimpleRayTracer extends RayTracerBase {
 	 */
     private Color calcLocalEffects(GeoPoint gp, Ray ray,Double3 k) {
         Vector v = ray.getDirection();
-        Vector n = gp.geometry.getNormal(gp.point);
+        Vector n = gp.getNormal();
         double nv = alignZero(n.dotProduct(v));
         if (nv == 0)//הוקטורים מאונכים
             return Color.BLACK;
@@ -97,7 +158,7 @@ public class SimpleRayTracer extends RayTracerBase {
             double nl = alignZero(n.dotProduct(lightVector));
             if (nl * nv > 0) { // sing(nl) ==sing(nv)
                 Double3 ktr=transparency(gp,lightSource,lightVector,n);
-                if (!(ktr.product(k).lowerThan(MIN_CALC_COLOR_K))) {
+                if (!(ktr.product(k).lowerThan(scene.minColorK))) {
                     Color lightIntensity = lightSource.getIntensity(gp.point).scale(ktr);
                     color = color.add(lightIntensity.scale(calcDiffusive(material, nl)),
                             lightIntensity.scale(calcSpecular(material, n, lightVector, nl, v)));
@@ -108,40 +169,28 @@ public class SimpleRayTracer extends RayTracerBase {
     }
 
     /**
-     * Calculates the global effects (reflection and refraction) at a given geometric point.
-     * @param gp    The geometric point in the scene.
-     * @param ray   The ray that intersects the geometric point.
-     * @param level The recursion level for global effects.
-     * @param k     The coefficient values for global effects.
-     * @return The calculated color due to global effects at the given point.
+     * Traces a secondary (reflected or refracted) ray of a point. The intersection of the ray is pushed to
+     * the shading stack, or the background seen by the ray is added to the color
+     * @param stack the shading stack
+     * @param color the color accumulated so far
+     * @param kx    the coefficient of the effect (reflection or refraction) at the point
+     * @param k     the attenuation of the color of the point
+     * @param level the remaining level of the point
+     * @param ray   the secondary ray
+     * @param kind  the kind of the secondary ray, for the render statistics
+     * @return the color accumulated so far, including the background seen by the ray
      */
-    private Color calcGlobalEffects(GeoPoint gp, Ray ray, int level, Double3 k) {
-        Vector v = ray.getDirection();
-        Vector n = gp.geometry.getNormal(gp.point);
-        Material material = gp.geometry.getMaterial();
-        return calcGlobalEffects(gp, level, material.kR, k, constructReflectedRay(gp, v, n))
-                .add(calcGlobalEffects(gp, level, material.kT, k, constructRefractedRay(gp, v, n)));
-    }
-
-    /**
-     * Calculates the global effects (reflection and refraction) at a given
-     * geometric point.
-     *
-     * @param geoPoint The geometric point in the scene.
-     * @param level    The recursion level for global effects.
-     * @param kx       The coefficient values for the specific effect (reflection or refraction).
-     * @param k        The overall coefficient values for global effects.
-     * @param ray      The ray used for the specific effect (reflection or refraction).
-     * @return The updated color after considering the global effects.
-     */
-    private Color calcGlobalEffects(GeoPoint geoPoint, int level,  Double3 kx, Double3 k, Ray ray) {
+    private Color calcGlobalEffect(ShadingStack stack, Color color, Double3 kx, Double3 k, int level, Ray ray,
+                                   RenderStatistics.Counter kind) {
         Double3 kkx = kx.product(k);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K))
-            return Color.BLACK;
-        GeoPoint reflectedPoint = findClosestIntersection(ray);
-        if (reflectedPoint == null)
-            return scene.background.scale(kx);
-        return calcColor(reflectedPoint, ray, level - 1, kkx).scale(kx);
+        if (kkx.lowerThan(scene.minColorK))
+            return color;
+        RenderStatistics.countRay(kind);
+        GeoPoint gp = findClosestIntersection(ray);
+        if (gp == null)
+            return color.add(scene.background.scale(kkx));
+        stack.push(gp, ray, kkx, level - 1);
+        return color;
     }
 
     /**
@@ -150,9 +199,10 @@ public class SimpleRayTracer extends RayTracerBase {
      * @return the closest GeoPoint of intersection, or null if there are no intersections.
      */
     private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        //let ray calculate the distance
-        return intersections == null ? null : ray.findClosestGeoPoint(intersections);
+        //the geometries skip any intersection farther than the closest one found so far, and fill the
+        //thread's hit record in place - only the closest intersection is turned into a GeoPoint
+        HitRecord hit = hitRecord.get().reset(ray);
+        return scene.geometries.findClosestHit(hit) ? hit.toGeoPoint() : null;
     }
 
     /**
@@ -166,7 +216,7 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     private Double3 calcSpecular(Material material, Vector normal, Vector lightVector, double nl, Vector vector) {
         Vector reflectedVector = lightVector.subtract(normal.scale(2 * nl));
-        double max = Math.max(0, vector.scale(-1).dotProduct(reflectedVector));
+        double max = Math.max(0, -vector.dotProduct(reflectedVector));
         return material.kS.scale(Math.pow(max, material.nShininess));
 
     }
@@ -222,20 +272,9 @@ public class SimpleRayTracer extends RayTracerBase {
         //add delta in ctr to prevent the head of the ray to count as a shadow
         // and to prevent mistakes du to small miscalculations (mottled affect)
         Ray lightRay = new Ray(gp.point, lightDirection, n);
-        //Point point = gp.point.add(n.scale(Util.alignZero(n.dotProduct(lightDirection)) < 0 ? DELTA : -DELTA));
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-
-        if (intersections == null)
-            return true;
-        double distance = lightSource.getDistance(gp.point);//distance from light source to the point
-        for (GeoPoint intersection : intersections) {
-            //make sure the object is between the light source and the point
-            if (alignZero(intersection.point.distance(gp.point)) <= distance
-                    //only objects with kt=0 will cast a shade
-                   && intersection.geometry.getMaterial().kT.equals(Double3.ZERO))
-                return false;
-        }
-        return true;
+        //the search stops at the first blocking object between the point and the light source
+        return !scene.geometries.findTransparency(lightRay, lightSource.getDistance(gp.point), scene.minColorK)
+                .lowerThan(scene.minColorK);
     }
     /**
      * Calculates the transparency factor for a given geometric point and light source.
@@ -249,18 +288,9 @@ public class SimpleRayTracer extends RayTracerBase {
     {
         Vector lightDirection = l.scale(-1); // from point to light source
         Ray lightRay = new Ray(geoPoint.point, lightDirection, n);//use ctr that adds delta
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(lightRay);
-        if (intersections == null)
-            return Double3.ONE;
-        Double3 ktr = Double3.ONE;
-        double lightDistance = ls.getDistance(geoPoint.point);
-        for (GeoPoint gp1 : intersections) {
-            if (alignZero(gp1.point.distance(geoPoint.point) - lightDistance) <= 0) {
-                ktr = ktr.product(gp1.geometry.getMaterial().kT);
-                if (ktr.lowerThan(MIN_CALC_COLOR_K))
-                    return Double3.ZERO;
-            }
-        }
-        return ktr;
+        RenderStatistics.countRay(RenderStatistics.Counter.SHADOW_RAYS);
+        //only the objects between the point and the light source are checked, and the search
+        //stops as soon as the light is blocked
+        return scene.geometries.findTransparency(lightRay, ls.getDistance(geoPoint.point), scene.minColorK);
     }
 }
@@ -1,5 +1,6 @@
 package scene;
 
+import geometries.BVHBuilder;
 import geometries.Geometries;
 import lighting.AmbientLight;
 import lighting.LightSource;
@@ -26,6 +27,14 @@ public class Scene {
     public Geometries geometries = new Geometries();
     /** The lights list contains all the light sources in the scene. */
     public List<LightSource> lights = new LinkedList<>();
+    /** The split method of the bounding volume hierarchy built before rendering, null for no hierarchy. */
+    public BVHBuilder.SplitMethod bvhSplitMethod = null;
+    /** True if a uniform grid is built over the geometries before rendering, instead of a hierarchy. */
+    public boolean uniformGrid = false;
+    /** The maximal level of reflected and refracted rays traced from a camera ray (1 for no secondary rays). */
+    public int maxColorLevel = 10;
+    /** The attenuation below which reflected, refracted and shadow rays are not traced any more. */
+    public double minColorK = 0.001;
 
     /**
      * Constructs a new scene with the given name
@@ -74,4 +83,57 @@ public class Scene {
         this.lights = lights;
         return this;
     }
+
+    /**
+     * Sets the split method of the bounding volume hierarchy that is built over the geometries
+     * before rendering the scene.
+     * @param bvhSplitMethod the split method, or null for rendering without a hierarchy
+     * @return the updated scene object
+     */
+    public Scene setBVH(BVHBuilder.SplitMethod bvhSplitMethod) {
+        this.bvhSplitMethod = bvhSplitMethod;
+        if (bvhSplitMethod != null)
+            uniformGrid = false;
+        return this;
+    }
+
+    /**
+     * Sets whether a uniform grid is built over the geometries before rendering the scene, instead of
+     * a bounding volume hierarchy. The grid is cheaper to build and to traverse for many geometries of
+     * similar sizes, like scenes regenerated for every frame.
+     * @param uniformGrid true for building a grid (replacing the hierarchy of the scene)
+     * @return the updated scene object
+     */
+    public Scene setUniformGrid(boolean uniformGrid) {
+        this.uniformGrid = uniformGrid;
+        if (uniformGrid)
+            bvhSplitMethod = null;
+        return this;
+    }
+
+    /**
+     * Sets the maximal level of reflected and refracted rays traced from a camera ray.
+     * @param maxColorLevel the maximal level, 1 for shading only the points seen by the camera
+     * @return the updated scene object
+     * @throws IllegalArgumentException if the level is less than 1
+     */
+    public Scene setMaxColorLevel(int maxColorLevel) {
+        if (maxColorLevel < 1)
+            throw new IllegalArgumentException("Maximal color level must be at least 1");
+        this.maxColorLevel = maxColorLevel;
+        return this;
+    }
+
+    /**
+     * Sets the attenuation below which reflected, refracted and shadow rays are not traced any more.
+     * @param minColorK the minimal attenuation, between 0 and 1
+     * @return the updated scene object
+     * @throws IllegalArgumentException if the attenuation is not between 0 and 1
+     */
+    public Scene setMinColorK(double minColorK) {
+        if (minColorK < 0 || minColorK > 1)
+            throw new IllegalArgumentException("Minimal color attenuation must be between 0 and 1");
+        this.minColorK = minColorK;
+        return this;
+    }
 }
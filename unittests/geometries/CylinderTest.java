@@ -1,6 +1,14 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -8,12 +16,123 @@ import static org.junit.jupiter.api.Assertions.*;
  * @author Ayala
  */
 public class CylinderTest {
-//    /**
-//     * Test method for {@link geometries.Cylinder#getNormal(primitives.Point)}.
-//     */
-//    @Test
-//    public void testGetNormal()  {
-//        fail("Not yet implemented");
-//    }
-
-}
\ No newline at end of file
+    /** A cylinder of radius 1 and height 2 standing on the origin along the z axis */
+    private final Cylinder cylinder = new Cylinder(1, new Ray(Point.ZERO, new Vector(0, 0, 1)), 2);
+
+    /**
+     * Test method for {@link geometries.Cylinder#getNormal(primitives.Point)}.
+     */
+    @Test
+    public void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A point on the side
+        assertEquals(new Vector(1, 0, 0), cylinder.getNormal(new Point(1, 0, 1)), "Wrong normal on the side");
+        // TC02: A point on the bottom base
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(new Point(0.5, 0.2, 0)), "Wrong normal on the bottom base");
+        // TC03: A point on the top base
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0.5, 0.2, 2)), "Wrong normal on the top base");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The center of the bottom base
+        assertEquals(new Vector(0, 0, -1), cylinder.getNormal(Point.ZERO), "Wrong normal at the center of the bottom base");
+        // TC12: The center of the top base
+        assertEquals(new Vector(0, 0, 1), cylinder.getNormal(new Point(0, 0, 2)), "Wrong normal at the center of the top base");
+    }
+
+    /**
+     * Test method for {@link geometries.Cylinder#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    public void testFindIntersections() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the side twice (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(1, 0, 1)),
+                cylinder.findIntersections(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0))),
+                "Wrong intersections with the side");
+        assertEquals(new Point(-1, 0, 1),
+                cylinder.findClosestGeoIntersection(new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0))).point,
+                "Wrong closest intersection with the side");
+        // TC02: Ray crosses the side and the top base (2 points)
+        assertEquals(List.of(new Point(-1, 0, 1), new Point(0, 0, 2)),
+                cylinder.findIntersections(new Ray(new Point(-2, 0, 0), new Vector(1, 0, 1))),
+                "Wrong intersections with the side and the top base");
+        // TC03: Ray crosses both bases (2 points)
+        assertEquals(List.of(new Point(0.5, 0, 2), new Point(0.5, 0, 0)),
+                cylinder.findIntersections(new Ray(new Point(0.5, 0, 5), new Vector(0, 0, -1))),
+                "Wrong intersections with the bases");
+        // TC04: Ray starts inside the cylinder (1 point)
+        assertEquals(List.of(new Point(0, 0, 2)),
+                cylinder.findIntersections(new Ray(new Point(0, 0, 1), new Vector(0, 0, 1))),
+                "Wrong intersection from inside the cylinder");
+        // TC05: Ray crosses the infinite tube beyond the height of the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 3), new Vector(1, 0, 0))),
+                "Ray passes above the cylinder");
+        // TC06: Ray starts after the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(2, 0, 1), new Vector(1, 0, 0))),
+                "Ray starts after the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray parallel to the axis outside the cylinder (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(2, 0, 5), new Vector(0, 0, -1))),
+                "Ray parallel to the axis outside the cylinder");
+        // TC12: Ray tangent to the side (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 1, 1), new Vector(1, 0, 0))),
+                "Ray tangent to the side");
+        // TC13: Ray along the rim of the top base (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(-2, 0, 2), new Vector(1, 0, 0))),
+                "Ray along the top base");
+        // TC14: Ray starts on the bottom base and goes out (0 points)
+        assertNull(cylinder.findIntersections(new Ray(new Point(0.5, 0, 0), new Vector(0, 0, -1))),
+                "Ray starts on the base and goes out");
+        // TC15: Ray starts on the bottom base and goes in (1 point)
+        assertEquals(List.of(new Point(0.5, 0, 2)),
+                cylinder.findIntersections(new Ray(new Point(0.5, 0, 0), new Vector(0, 0, 1))),
+                "Wrong intersection from the base inwards");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        Cylinder glass = new Cylinder(1, new Ray(Point.ZERO, new Vector(0, 0, 1)), 2);
+        glass.setMaterial(new Material().setkT(0.5));
+        Ray ray = new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Light behind the cylinder - the light crosses the side twice
+        assertEquals(new Double3(0.25), glass.findTransparency(ray, 5, 0.001), "Wrong transparency behind the cylinder");
+        // TC02: Light inside the cylinder
+        assertEquals(new Double3(0.5), glass.findTransparency(ray, 2, 0.001), "Wrong transparency inside the cylinder");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Directional light - infinite distance
+        assertEquals(new Double3(0.25), glass.findTransparency(ray, Double.POSITIVE_INFINITY, 0.001),
+                "Wrong transparency of a directional light");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#getBoundingBox()}.
+     */
+    @Test
+    public void testGetBoundingBox() {
+        final double DELTA = 0.000001;
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A tilted cylinder - the bases spread according to their tilt
+        Cylinder tilted = new Cylinder(1, new Ray(Point.ZERO, new Vector(1, 1, 0)), Math.sqrt(2));
+        BoundingBox box = tilted.getBoundingBox();
+        assertEquals(-Math.sqrt(0.5), box.getMin(0), DELTA, "Wrong minimal x");
+        assertEquals(1 + Math.sqrt(0.5), box.getMax(1), DELTA, "Wrong maximal y");
+        assertEquals(-1, box.getMin(2), DELTA, "Wrong minimal z");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A cylinder along an axis
+        box = new Cylinder(1, new Ray(new Point(0, 0, 1), new Vector(0, 0, -1)), 2).getBoundingBox();
+        assertEquals(-1, box.getMin(2), DELTA, "Wrong minimal z");
+        assertEquals(1, box.getMax(2), DELTA, "Wrong maximal z");
+        assertEquals(1, box.getMax(0), DELTA, "Wrong maximal x");
+        // TC12: A tube is unbounded
+        assertFalse(new Tube(1, new Ray(Point.ZERO, new Vector(0, 0, 1))).isBounded(), "A tube must be unbounded");
+    }
+
+}
@@ -1,14 +1,21 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 /**
  * Unit tests for geometries.Geometries class
  * @author Ayala
@@ -48,4 +55,211 @@ public class GeometriesTest {
                 "Empty list of geometries");
 
     }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH()}.
+     */
+    @Test
+    public void testBuildBVH() {
+        Geometries geometries = new Geometries(new Sphere(0.5,new Point(0, 0, 2)),
+                new Polygon(new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 0, 0), new Point(0, -1, 0)),
+                new Triangle(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 1)),
+                new Sphere(1, new Point(10, -10, 10)),
+                new Plane(new Point(0, 0, -5), new Vector(0, 0, 1))).buildBVH();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A few geometries intersects
+        assertEquals(2, geometries.findIntersections(new Ray(new Point(-1, -1, -1), new Vector(2, 2, 2))).size(),
+                "A few geometries intersects");
+
+        // TC02: Only the unbounded geometry intersects
+        assertEquals(1, geometries.findIntersections(new Ray(new Point(5, 5, 5), new Vector(0, 1, -1))).size(),
+                "Only the unbounded geometry intersects");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: All the neighbouring geometries intersects
+        assertEquals(4, geometries.findIntersections(new Ray(new Point(0.2, 0.2, -0.6), new Vector(0, 0, 1))).size(),
+                "All the neighbouring geometries intersects");
+
+        // TC12: No geometries intersects
+        assertNull(geometries.findIntersections(new Ray(new Point(1, 1, 1), new Vector(1, 1, 2))),
+                "No geometries intersects");
+
+        // TC13: Empty list of geometries
+        assertNull(new Geometries().buildBVH().findIntersections(new Ray(new Point(1, 2, 3), new Vector(2, 2, 2))),
+                "Empty list of geometries");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildBVH(BVHBuilder.SplitMethod)}.
+     */
+    @Test
+    public void testBuildBVHSplitMethods() {
+        Ray diagonal = new Ray(new Point(-1, -1, -1), new Vector(1, 1, 1));
+        Ray side = new Ray(new Point(-1, 0, 0), new Vector(1, 0, 0));
+        for (BVHBuilder.SplitMethod splitMethod : BVHBuilder.SplitMethod.values()) {
+            Geometries geometries = new Geometries();
+            for (int i = 0; i < 10; ++i)
+                for (int j = 0; j < 10; ++j)
+                    geometries.add(new Sphere(0.3, new Point(i, j, i)));
+            geometries.buildBVH(splitMethod);
+
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The ray crosses the diagonal spheres
+            assertEquals(20, geometries.findIntersections(diagonal).size(), splitMethod + ": diagonal spheres intersects");
+            // TC02: The ray crosses a single sphere
+            assertEquals(2, geometries.findIntersections(side).size(), splitMethod + ": single sphere intersects");
+            // TC03: The statistics cover all the bodies
+            assertEquals(100, geometries.getBVHStatistics().bodies, splitMethod + ": wrong amount of bodies");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: Rebuilding the index leaves the previous bodies unchanged for the rays going over them
+            List<Intersectable> previous = geometries.getBodies();
+            geometries.buildGrid();
+            assertEquals(1, previous.size(), splitMethod + ": the previous bodies were changed by a rebuild");
+            assertInstanceOf(Geometries.class, previous.get(0), splitMethod + ": the previous hierarchy was replaced");
+            assertEquals(20, geometries.findIntersections(diagonal).size(), splitMethod + ": diagonal spheres intersects");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        Sphere sphere = new Sphere(0.5, new Point(0, 0, 2));
+        Polygon polygon = new Polygon(new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 0, 0), new Point(0, -1, 0));
+        Triangle triangle = new Triangle(new Point(1, 0, 0), new Point(0, 1, 0), new Point(0, 0, 1));
+        Geometries flat = new Geometries(sphere, polygon, triangle);
+        Geometries hierarchy = new Geometries(sphere, polygon, triangle).buildBVH();
+
+        for (Geometries geometries : List.of(flat, hierarchy)) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: The closest of a few intersections
+            Intersectable.GeoPoint closest = geometries.findClosestGeoIntersection(
+                    new Ray(new Point(0.2, 0.2, -0.6), new Vector(0, 0, 1)));
+            assertEquals(new Intersectable.GeoPoint(polygon, new Point(0.2, 0.2, 0)), closest, "Wrong closest intersection");
+
+            // TC02: The closest intersection from the other side
+            closest = geometries.findClosestGeoIntersection(new Ray(new Point(0.2, 0.2, 5), new Vector(0, 0, -1)));
+            assertEquals(sphere, closest.geometry, "Wrong closest geometry");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: No geometries intersects
+            assertNull(geometries.findClosestGeoIntersection(new Ray(new Point(1, 1, 1), new Vector(1, 1, 1))),
+                    "No geometries intersects");
+        }
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        Geometries geometries = new Geometries(
+                new Sphere(0.5, new Point(0, 0, 2)).setMaterial(new Material().setkT(0.5)),
+                new Polygon(new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 0, 0), new Point(0, -1, 0))
+                        .setMaterial(new Material().setkT(0.5)),
+                new Sphere(0.5, new Point(0, 0, 5)));
+        Ray ray = new Ray(new Point(0, 0, -1), new Vector(0, 0, 1));
+        final double minK = 0.001;
+
+        for (Geometries g : List.of(geometries, geometries.buildBVH())) {
+            // ============ Equivalence Partitions Tests ==============
+            // TC01: Transparent geometries before the light (the sphere is crossed twice)
+            assertEquals(new Double3(0.125), g.findTransparency(ray, 4, minK), "Wrong transparency");
+            // TC02: An opaque geometry before the light
+            assertEquals(Double3.ZERO, g.findTransparency(ray, 10, minK), "The ray should be blocked");
+
+            // =============== Boundary Values Tests ==================
+            // TC11: Nothing before the light
+            assertEquals(Double3.ONE, g.findTransparency(ray, 0.5, minK), "Nothing should block the ray");
+        }
+
+        // TC12: A directional light (infinite distance) and a plane the ray doesn't cross
+        Geometries plane = new Geometries(new Plane(new Point(0, 0, -2), new Vector(0, 0, 1)));
+        assertEquals(Double3.ONE, plane.findTransparency(ray, Double.POSITIVE_INFINITY, minK),
+                "A plane behind the ray should not block it");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#setBoxCulling(boolean)}.
+     */
+    @Test
+    public void testSetBoxCulling() {
+        Sphere sphere = new Sphere(0.5, new Point(0, 0, 2));
+        Polygon polygon = new Polygon(new Point(1, 0, 0), new Point(0, 1, 0), new Point(-1, 0, 0), new Point(0, -1, 0));
+        Plane plane = new Plane(new Point(0, 0, -5), new Vector(0, 0, 1));
+        Geometries geometries = new Geometries(sphere, polygon, plane).setBoxCulling(true);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The bounded geometries are still found through their boxes
+        assertEquals(4, geometries.findIntersections(new Ray(new Point(0.2, 0.2, 5), new Vector(0, 0, -1))).size(),
+                "Wrong number of intersections with box culling");
+        assertEquals(sphere, geometries.findClosestGeoIntersection(
+                new Ray(new Point(0.2, 0.2, 5), new Vector(0, 0, -1))).geometry, "Wrong closest geometry");
+
+        // TC02: The ray misses all the boxes - only the unbounded plane is checked
+        assertEquals(List.of(new Point(5, 5, -5)),
+                geometries.findIntersections(new Ray(new Point(5, 5, 5), new Vector(0, 0, -1))),
+                "Only the unbounded geometry intersects");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: The light is before the boxes of the bodies
+        assertEquals(Double3.ONE, geometries.findTransparency(new Ray(new Point(0, 0, 5), new Vector(0, 0, -1)), 2, 0.001),
+                "Nothing should block the ray before the boxes");
+        // TC12: Unbounded geometries have no box
+        assertFalse(plane.isBounded(), "A plane must be unbounded");
+        assertTrue(sphere.isBounded(), "A sphere must be bounded");
+    }
+
+    /**
+     * Test method for {@link geometries.Geometries#buildGrid()}.
+     */
+    @Test
+    public void testBuildGrid() {
+        Random random = new Random(3);
+        Geometries flat = new Geometries();
+        Geometries grid = new Geometries();
+        for (int i = 0; i < 300; ++i) {
+            Sphere sphere = new Sphere(0.2 + random.nextDouble() * 0.5,
+                    new Point(random.nextDouble() * 20 - 10, random.nextDouble() * 20 - 10, random.nextDouble() * 10 - 30));
+            sphere.setMaterial(new Material().setkT(0.9));
+            flat.add(sphere);
+            grid.add(sphere);
+        }
+        Plane plane = new Plane(new Point(0, 0, -40), new Vector(0, 0, 1));
+        flat.add(plane);
+        grid.add(plane);
+        grid.buildGrid();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The grid keeps the unbounded plane next to it
+        assertNotNull(grid.getGrid(), "The grid was not built");
+        assertEquals(2, grid.getBodies().size(), "The plane must be kept next to the grid");
+        // TC02: The grid finds the same intersections as the flat list, each of them once
+        for (int k = 0; k < 300; ++k) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, 0),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -1));
+            assertEquals(flat.findIntersections(ray).size(), grid.findIntersections(ray).size(),
+                    "Wrong number of intersections in the grid");
+            assertEquals(flat.findClosestGeoIntersection(ray), grid.findClosestGeoIntersection(ray),
+                    "Wrong closest intersection in the grid");
+            assertEquals(flat.findTransparency(ray, 35, 0.001), grid.findTransparency(ray, 35, 0.001),
+                    "Wrong transparency in the grid");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Adding a body drops the grid
+        grid.add(new Sphere(1, new Point(0, 0, -5)));
+        assertNull(grid.getGrid(), "The grid no longer covers all the bodies");
+        // TC12: A ray along a grid axis from inside the grid
+        grid.buildGrid();
+        flat.add(new Sphere(1, new Point(0, 0, -5)));
+        Ray axis = new Ray(new Point(0.1, 0.1, -20), new Vector(0, 0, -1));
+        assertEquals(flat.findIntersections(axis).size(), grid.findIntersections(axis).size(),
+                "Wrong number of intersections along an axis");
+        // TC13: Only unbounded bodies - no grid
+        assertNull(new Geometries(plane).buildGrid().getGrid(), "A grid without bounded bodies");
+    }
 }
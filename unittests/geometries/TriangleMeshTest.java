@@ -0,0 +1,256 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static geometries.Intersectable.GeoPoint;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh and geometries.ObjLoader classes
+ * @author Ayala
+ */
+public class TriangleMeshTest {
+    /** Vertices of a cube between (-1,-1,-6) and (1,1,-4) */
+    private final double[] cubeVertices = {
+            -1, -1, -6, 1, -1, -6, 1, 1, -6, -1, 1, -6,
+            -1, -1, -4, 1, -1, -4, 1, 1, -4, -1, 1, -4 };
+    /** Faces of the cube, ordered counterclockwise when looking from outside the cube */
+    private final int[] cubeFaces = {
+            0, 2, 1, 0, 3, 2,   // back
+            4, 5, 6, 4, 6, 7,   // front
+            0, 1, 5, 0, 5, 4,   // bottom
+            3, 7, 6, 3, 6, 2,   // top
+            0, 4, 7, 0, 7, 3,   // left
+            1, 2, 6, 1, 6, 5 }; // right
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[])}.
+     */
+    @Test
+    public void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Correct mesh
+        TriangleMesh cube = new TriangleMesh(cubeVertices, cubeFaces);
+        assertEquals(8, cube.getVertexCount(), "Wrong amount of vertices");
+        assertEquals(12, cube.getFaceCount(), "Wrong amount of faces");
+        BoundingBox box = cube.getBoundingBox();
+        assertEquals(-1, box.getMin(0), 0.000001, "Wrong bounding box");
+        assertEquals(-4, box.getMax(2), 0.000001, "Wrong bounding box");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Face referring to a missing vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(cubeVertices, new int[]{ 0, 1, 8 }),
+                "Constructed a mesh with a missing vertex");
+        // TC12: Incomplete face
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(cubeVertices, new int[]{ 0, 1 }),
+                "Constructed a mesh with an incomplete face");
+        // TC13: Incomplete vertex
+        assertThrows(IllegalArgumentException.class, () -> new TriangleMesh(new double[]{ 0, 1 }, new int[]{ 0, 0, 0 }),
+                "Constructed a mesh with an incomplete vertex");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findIntersections(primitives.Ray)}.
+     */
+    @Test
+    public void testFindIntersections() {
+        TriangleMesh cube = new TriangleMesh(cubeVertices, cubeFaces);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray crosses the cube (2 points)
+        var result = cube.findIntersections(new Ray(Point.ZERO, new Vector(0.1, 0.2, -1)));
+        assertNotNull(result, "Ray crosses the cube - 2 points expected");
+        assertEquals(2, result.size(), "Wrong number of points");
+
+        // TC02: Ray misses the cube (0 points)
+        assertNull(cube.findIntersections(new Ray(Point.ZERO, new Vector(1, 1, -1))),
+                "Ray misses the cube - 0 points expected");
+
+        // TC03: Ray starts inside the cube (1 point)
+        result = cube.findIntersections(new Ray(new Point(0, 0, -5), new Vector(0.1, 0.2, 1)));
+        assertNotNull(result, "Ray starts inside the cube - 1 point expected");
+        assertEquals(1, result.size(), "Wrong number of points");
+
+        // TC04: Ray starts after the cube (0 points)
+        assertNull(cube.findIntersections(new Ray(new Point(0, 0, -10), new Vector(0.1, 0.2, -1))),
+                "Ray starts after the cube - 0 points expected");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray crosses the cube through a shared edge of two faces - the ray does not leak,
+        // and each face it crosses on the edge is counted once (2 points)
+        result = cube.findIntersections(new Ray(Point.ZERO, new Vector(0, 0, -1)));
+        assertNotNull(result, "Ray through the shared edges must hit the cube");
+        assertEquals(2, result.size(), "Wrong number of points through the shared edges");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(primitives.Ray)}.
+     */
+    @Test
+    public void testFindClosestGeoIntersection() {
+        TriangleMesh cube = new TriangleMesh(cubeVertices, cubeFaces);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The closest point is on the front face, with the normal of the face
+        GeoPoint gp = cube.findClosestGeoIntersection(new Ray(Point.ZERO, new Vector(0.1, 0.2, -4)));
+        assertNotNull(gp, "Ray crosses the cube - a point expected");
+        assertEquals(new Point(0.1, 0.2, -4), gp.point, "Wrong closest point");
+        assertEquals(new Vector(0, 0, 1), gp.getNormal(), "Wrong normal of the front face");
+
+        // TC02: The closest point is on the right face
+        gp = cube.findClosestGeoIntersection(new Ray(new Point(5, 0.5, -5), new Vector(-1, 0, 0)));
+        assertNotNull(gp, "Ray crosses the cube - a point expected");
+        assertEquals(new Point(1, 0.5, -5), gp.point, "Wrong closest point");
+        assertEquals(new Vector(1, 0, 0), gp.getNormal(), "Wrong normal of the right face");
+        assertEquals(new Vector(1, 0, 0), cube.getNormal(gp.point), "Wrong normal found by a point");
+
+        // TC03: The hit on a face is recorded with its barycentric coordinates, which weigh the vertices of the face
+        HitRecord hit = new HitRecord().reset(new Ray(new Point(0.2, -0.4, 0), new Vector(0, 0, -1)));
+        assertTrue(cube.findClosestHit(hit), "Ray crosses the cube - a hit expected");
+        assertEquals(new Point(0.2, -0.4, -4), hit.getPoint(), "Wrong closest hit");
+        // the front face (-1,-1,-4), (1,-1,-4), (1,1,-4)
+        assertEquals(0.3, hit.getU(), 0.000001, "Wrong weight of the second vertex of the face");
+        assertEquals(0.3, hit.getV(), 0.000001, "Wrong weight of the third vertex of the face");
+
+        // TC04: Large mesh - the hierarchy of the mesh finds the same points as separate triangles
+        final int size = 30;
+        double[] vertices = new double[3 * (size + 1) * (size + 1)];
+        int[] faces = new int[6 * size * size];
+        Random random = new Random(1);
+        for (int i = 0; i <= size; ++i)
+            for (int j = 0; j <= size; ++j) {
+                int v = 3 * (i * (size + 1) + j);
+                vertices[v] = j - size / 2d;
+                vertices[v + 1] = i - size / 2d;
+                vertices[v + 2] = -20 + random.nextDouble() * 4;
+            }
+        Geometries triangles = new Geometries();
+        for (int i = 0, f = 0; i < size; ++i)
+            for (int j = 0; j < size; ++j) {
+                int a = i * (size + 1) + j, b = a + 1, c = a + size + 2, d = a + size + 1;
+                int[] quad = { a, b, c, a, c, d };
+                for (int k = 0; k < 6; k += 3) {
+                    faces[f++] = quad[k];
+                    faces[f++] = quad[k + 1];
+                    faces[f++] = quad[k + 2];
+                    triangles.add(new Triangle(vertex(vertices, quad[k]), vertex(vertices, quad[k + 1]),
+                            vertex(vertices, quad[k + 2])));
+                }
+            }
+        TriangleMesh terrain = new TriangleMesh(vertices, faces);
+        for (int k = 0; k < 200; ++k) {
+            Ray ray = new Ray(new Point(random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2, 10),
+                    new Vector(random.nextDouble() - 0.5, random.nextDouble() - 0.5, -3));
+            GeoPoint expected = triangles.findClosestGeoIntersection(ray);
+            GeoPoint actual = terrain.findClosestGeoIntersection(ray);
+            if (expected == null) // a ray through an edge may be missed by the separate triangles
+                continue;
+            assertNotNull(actual, "Mesh missed a ray hitting its triangles");
+            assertEquals(expected.point, actual.point, "Wrong closest point in a large mesh");
+            assertEquals(expected.geometry.getNormal(expected.point), actual.getNormal(),
+                    "Wrong normal in a large mesh");
+        }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Two layers of 4 faces each (a leaf each) - the faces of the farther leaf, whose box begins
+        // behind the closest hit, are not tested
+        double[] layers = {
+                0, 0, -5, -1, -1, -5, 1, -1, -5, 1, 1, -5, -1, 1, -5,
+                0, 0, -10, -1, -1, -10, 1, -1, -10, 1, 1, -10, -1, 1, -10 };
+        int[] fans = { 0, 1, 2, 0, 2, 3, 0, 3, 4, 0, 4, 1, 5, 6, 7, 5, 7, 8, 5, 8, 9, 5, 9, 6 };
+        TriangleMesh twoLayers = new TriangleMesh(layers, fans);
+        Intersectable.countTests(true);
+        try {
+            long tests = Intersectable.getTestCount();
+            gp = twoLayers.findClosestGeoIntersection(new Ray(new Point(0.1, 0.2, 0), new Vector(0, 0, -1)));
+            assertEquals(4, Intersectable.getTestCount() - tests, "Faces behind the closest hit were tested");
+        } finally {
+            Intersectable.countTests(false);
+        }
+        assertNotNull(gp, "Ray crosses the layers - a point expected");
+        assertEquals(new Point(0.1, 0.2, -5), gp.point, "Wrong closest point of the layers");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(primitives.Ray, double, double)}.
+     */
+    @Test
+    public void testFindTransparency() {
+        TriangleMesh cube = new TriangleMesh(cubeVertices, cubeFaces);
+        cube.setMaterial(new Material().setkT(0.5));
+        Ray ray = new Ray(Point.ZERO, new Vector(0.1, 0.2, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Light behind the cube - the light crosses two faces
+        assertEquals(new Double3(0.25), cube.findTransparency(ray, 10, 0.001), "Wrong transparency behind the cube");
+        // TC02: Light inside the cube - the light crosses one face
+        assertEquals(new Double3(0.5), cube.findTransparency(ray, 5, 0.001), "Wrong transparency inside the cube");
+        // TC03: Light before the cube
+        assertEquals(Double3.ONE, cube.findTransparency(ray, 2, 0.001), "Wrong transparency before the cube");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Light crossing the cube through shared edges of two faces - each crossing is counted once
+        assertEquals(new Double3(0.25), cube.findTransparency(new Ray(Point.ZERO, new Vector(0, 0, -1)), 10, 0.001),
+                "Wrong transparency through the shared edges");
+        // TC12: Opaque cube blocks the light
+        cube.setMaterial(new Material());
+        assertEquals(Double3.ZERO, cube.findTransparency(ray, 10, 0.001), "Opaque cube must block the light");
+    }
+
+    /**
+     * Test method for {@link geometries.ObjLoader#load(java.nio.file.Path)}.
+     * @param folder a temporary folder for the test files
+     * @throws IOException if the test files cannot be written
+     */
+    @Test
+    public void testLoadObj(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: A square with comments, normals, texture coordinates and a relative index
+        Path file = folder.resolve("square.obj");
+        Files.writeString(file, """
+                # a square at z = -5
+                o square
+                v -1 -1 -5
+                v 1.0 -1.0 -5.0
+                v  1e0 1 -5\r
+                v -1 +1.0 -0.5e1
+                vt 0 0
+                vn 0 0 1
+                usemtl white
+                f 1/1/1 2/1/1 3//1 -1
+                """);
+        TriangleMesh square = ObjLoader.load(file);
+        assertEquals(4, square.getVertexCount(), "Wrong amount of vertices");
+        assertEquals(2, square.getFaceCount(), "A square must be split into 2 triangles");
+        GeoPoint gp = square.findClosestGeoIntersection(new Ray(Point.ZERO, new Vector(0.5, -0.5, -5)));
+        assertNotNull(gp, "Ray crosses the loaded square - a point expected");
+        assertEquals(new Point(0.5, -0.5, -5), gp.point, "Wrong intersection with the loaded square");
+        assertEquals(new Vector(0, 0, 1), gp.getNormal(), "Wrong normal of the loaded square");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: A face referring to a missing vertex
+        Path bad = folder.resolve("bad.obj");
+        Files.writeString(bad, "v 0 0 0\nv 1 0 0\nv 0 1 0\nf 1 2 4\n");
+        assertThrows(IllegalArgumentException.class, () -> ObjLoader.load(bad), "Loaded a face with a missing vertex");
+        // TC12: A file without faces
+        Files.writeString(bad, "v 0 0 0\n");
+        assertThrows(IllegalArgumentException.class, () -> ObjLoader.load(bad), "Loaded a mesh without faces");
+    }
+
+    /**
+     * Returns a vertex of a flat array of vertices as a point
+     * @param vertices the coordinates of the vertices
+     * @param index    the index of the vertex
+     * @return the vertex
+     */
+    private static Point vertex(double[] vertices, int index) {
+        return new Point(vertices[3 * index], vertices[3 * index + 1], vertices[3 * index + 2]);
+    }
+}
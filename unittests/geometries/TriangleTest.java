@@ -67,4 +67,27 @@ public class TriangleTest {
                 "The intersection point is outside of the triangle - 0 intersections expected");
 
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for
+     * {@link geometries.Intersectable#findClosestHit(geometries.HitRecord)}.
+     */
+    @Test
+    public void testFindClosestHit() {
+        Triangle triangle = new Triangle(new Point(0, 1, 0), new Point(2, 6, 0), new Point(5, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: The hit is recorded with its distance and barycentric coordinates
+        HitRecord hit = new HitRecord().reset(new Ray(new Point(1.75, 2, 5), new Vector(0, 0, -1)));
+        assertTrue(triangle.findClosestHit(hit), "The ray crosses the triangle - a hit expected");
+        assertEquals(5, hit.t, 0.000001, "Wrong distance of the hit");
+        assertEquals(0.25, hit.getU(), 0.000001, "Wrong weight of the second vertex");
+        assertEquals(0.25, hit.getV(), 0.000001, "Wrong weight of the third vertex");
+        assertEquals(new Point(1.75, 2, 0), hit.getPoint(), "Wrong point of the hit");
+
+        // TC02: A hit farther than the recorded one is not recorded
+        hit.reset(hit.getRay(), 4);
+        assertFalse(triangle.findClosestHit(hit), "A farther hit was recorded");
+        assertTrue(Double.isNaN(hit.getU()), "Barycentric coordinates without a triangle hit");
+    }
+}
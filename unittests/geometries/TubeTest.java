@@ -1,6 +1,8 @@
 package geometries;
 
 import org.junit.jupiter.api.Test;
+import primitives.Double3;
+import primitives.Material;
 import primitives.Point;
 import primitives.Ray;
 import primitives.Vector;
@@ -267,4 +269,55 @@ public class TubeTest {
         result = tube2.findIntersections(ray);
         assertNull(result, "ERROR: wrong intersections");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test method for {@link geometries.Intersectable#findClosestGeoIntersection(Ray)}.
+     */
+    @Test
+    void testFindClosestGeoIntersection() {
+        Tube tube = new Tube(1d, new Ray(new Point(1, 1, 1), new Vector(0, 0, 1)));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Ray starts before the tube - the nearer of the 2 points
+        Intersectable.GeoPoint gp = tube.findClosestGeoIntersection(new Ray(Point.ZERO, new Vector(2, 1, 1)));
+        assertNotNull(gp, "ERROR: intersection expected");
+        assertEquals(new Point(0.4, 0.2, 0.2), gp.point, "ERROR: Wrong closest intersection");
+
+        // TC02: Ray starts inside the tube (1 point)
+        gp = tube.findClosestGeoIntersection(new Ray(new Point(1, 0.5, 0.5), new Vector(2, 1, 1)));
+        assertNotNull(gp, "ERROR: intersection expected");
+        assertEquals(new Point(2, 1, 1), gp.point, "ERROR: Wrong closest intersection");
+
+        // TC03: Ray misses the tube
+        assertNull(tube.findClosestGeoIntersection(new Ray(new Point(1, 3, 1), new Vector(1, 0, 0))),
+                "ERROR: no intersection expected");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Ray parallel to the axis
+        assertNull(tube.findClosestGeoIntersection(new Ray(new Point(1, 1.5, 0), new Vector(0, 0, 1))),
+                "ERROR: no intersection expected");
+    }
+
+    /**
+     * Test method for {@link geometries.Intersectable#findTransparency(Ray, double, double)}.
+     */
+    @Test
+    void testFindTransparency() {
+        Tube glass = new Tube(1d, new Ray(Point.ZERO, new Vector(0, 0, 1)));
+        glass.setMaterial(new Material().setkT(0.5));
+        Ray ray = new Ray(new Point(-2, 0, 1), new Vector(1, 0, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: Light behind the tube - the light crosses the tube twice
+        assertEquals(new Double3(0.25), glass.findTransparency(ray, 5, 0.001), "Wrong transparency behind the tube");
+        // TC02: Light inside the tube
+        assertEquals(new Double3(0.5), glass.findTransparency(ray, 2, 0.001), "Wrong transparency inside the tube");
+        // TC03: Light before the tube
+        assertEquals(Double3.ONE, glass.findTransparency(ray, 0.5, 0.001), "Wrong transparency before the tube");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: Opaque tube blocks the light
+        glass.setMaterial(new Material());
+        assertEquals(Double3.ZERO, glass.findTransparency(ray, 5, 0.001), "Opaque tube must block the light");
+    }
+}
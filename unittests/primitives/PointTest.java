@@ -57,6 +57,21 @@ public class PointTest {
 
     }
 
+    /**
+     * Test method for {@link primitives.Point#add(primitives.Vector, double)}
+     */
+    @Test
+    public void testAddScaled() {
+        // ============ Equivalence Partitions Tests ==============
+        // TA01: Test for adding a scaled vector to a point
+        assertEquals(new Point(3, 6, 9), p1.add(v1, 2), "ERROR: (point + vector * scale) does not work correctly");
+        // =============== Boundary Values Tests ==================
+        // TA11: Test that adding a vector scaled by zero keeps the point
+        assertEquals(p1, p1.add(v1, 0), "ERROR: (point + vector * 0) does not keep the point");
+        // TA12: Test that adding a vector scaled by -1 is the same as subtracting it
+        assertEquals(p0, p1.add(v1, -1), "ERROR: (point - vector) = center of coordinates, does not work correctly");
+    }
+
     /**
      * Test method for {@link primitives.Point#distanceSquared(primitives.Point)}.
      */
@@ -1,12 +1,30 @@
 package renderer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import geometries.Sphere;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
 
 import primitives.*;
 import renderer.*;
 import scene.Scene;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 //import scene.Scene;
 
 /**
@@ -64,4 +82,278 @@ class CameraTest {
 
     }
 
+    /**
+     * Test method for
+     * {@link renderer.Camera#constructBeamOfRays(int, int, int, int, int)}.
+     */
+    @Test
+    void testConstructBeamOfRays() {
+        final String badRay = "Bad ray";
+        Camera camera = cameraBuilder.setVpSize(6, 6).build();
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: 3X3 Center (1,1) with 4 rays - through the centers of the quarters of the pixel, row after row
+        assertEquals(List.of(new Ray(Point.ZERO, new Vector(0.5, -0.5, -10)), new Ray(Point.ZERO, new Vector(-0.5, -0.5, -10)),
+                        new Ray(Point.ZERO, new Vector(0.5, 0.5, -10)), new Ray(Point.ZERO, new Vector(-0.5, 0.5, -10))),
+                camera.constructBeamOfRays(3, 3, 1, 1, 4), badRay);
+
+        // TC02: 3X3 Corner (0,0) with 4 rays
+        assertEquals(List.of(new Ray(Point.ZERO, new Vector(2.5, -2.5, -10)), new Ray(Point.ZERO, new Vector(1.5, -2.5, -10)),
+                        new Ray(Point.ZERO, new Vector(2.5, -1.5, -10)), new Ray(Point.ZERO, new Vector(1.5, -1.5, -10))),
+                camera.constructBeamOfRays(3, 3, 0, 0, 4), badRay);
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single ray is through the center of the pixel
+        assertEquals(List.of(camera.constructRay(3, 3, 0, 0)), camera.constructBeamOfRays(3, 3, 0, 0, 1), badRay);
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#getStatistics()}.
+     */
+    @Test
+    void testGetStatistics() {
+        Scene scene = new Scene("Statistics test");
+        scene.geometries.add(new Sphere(3, new Point(0, 0, -20))
+                .setMaterial(new Material().setKd(0.5).setKs(0.5).setShininess(20)));
+        scene.lights.add(new PointLight(new Color(255, 255, 255), new Point(10, 10, 10)));
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(Point.ZERO)
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpDistance(10).setVpSize(8, 8);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: instrumented rendering counts a primary ray for each pixel, and shadow rays only where the sphere is seen
+        Camera camera = builder.setImageWriter(new ImageWriter("statistics test", 20, 20))
+                .setInstrumentation(true).build();
+        camera.renderImage();
+        RenderStatistics statistics = camera.getStatistics();
+        assertEquals(400, statistics.getTotal(RenderStatistics.Counter.PRIMARY_RAYS), "Bad primary rays count");
+        assertEquals(1, statistics.get(RenderStatistics.Counter.PRIMARY_RAYS, 0, 0), "Bad pixel primary rays count");
+        assertEquals(0, statistics.get(RenderStatistics.Counter.SHADOW_RAYS, 0, 0), "Background pixel has shadow rays");
+        assertEquals(1, statistics.get(RenderStatistics.Counter.SHADOW_RAYS, 10, 10), "Bad sphere pixel shadow rays");
+        assertTrue(statistics.get(RenderStatistics.Counter.INTERSECTION_TESTS, 10, 10) > 1, "Bad intersection tests count");
+        camera.writeHeatmap(RenderStatistics.Counter.INTERSECTION_TESTS);
+
+        // TC02: progressive rendering adds up the costs of all the passes over each pixel
+        camera = builder.setImageWriter(new ImageWriter("statistics test", 20, 20))
+                .setInstrumentation(true).setNumOfRays(10).setProgressive(true).build();
+        camera.renderImage();
+        statistics = camera.getStatistics();
+        assertEquals(4000, statistics.getTotal(RenderStatistics.Counter.PRIMARY_RAYS), "Bad progressive primary rays count");
+        assertEquals(10, statistics.get(RenderStatistics.Counter.PRIMARY_RAYS, 0, 0), "Bad pixel progressive rays count");
+
+        // TC03: renderings of the same camera at the same time collect their own statistics
+        camera = builder.setImageWriter(new ImageWriter("statistics test", 20, 20))
+                .setNumOfRays(1).setProgressive(false).setMultithreading(2).build();
+        CompletableFuture.allOf(camera.renderImageAsync(null), camera.renderImageAsync(null)).join();
+        assertEquals(400, camera.getStatistics().getTotal(RenderStatistics.Counter.PRIMARY_RAYS),
+                "Statistics of concurrent renderings were mixed");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an image with too many pixels for the statistics
+        assertThrows(IllegalArgumentException.class, () -> new RenderStatistics(50000, 50000),
+                "Statistics of too many pixels were created");
+
+        // TC12: regular rendering collects no statistics
+        camera = builder.setImageWriter(new ImageWriter("statistics test", 20, 20))
+                .setInstrumentation(false).setNumOfRays(1).setProgressive(false).build();
+        camera.renderImage();
+        assertNull(camera.getStatistics(), "Statistics collected without instrumentation");
+    }
+
+    /**
+     * An image writer counting the written pixels, which holds every pixel from a given one on until
+     * its gate is opened
+     */
+    private static class GatedImageWriter extends ImageWriter {
+        /** The amount of written pixels */
+        final AtomicInteger writes = new AtomicInteger();
+        /** Released when the first held pixel is being written */
+        final CountDownLatch reached = new CountDownLatch(1);
+        /** Opened by the test for writing the held pixels */
+        final CountDownLatch gate = new CountDownLatch(1);
+        /** The number of the first held pixel */
+        private final int held;
+        /** The amount of pixels that started being written */
+        private final AtomicInteger started = new AtomicInteger();
+
+        GatedImageWriter(int nX, int nY, int held) {
+            super("async test", nX, nY);
+            this.held = held;
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            if (started.incrementAndGet() >= held) {
+                reached.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            writes.incrementAndGet();
+            super.writePixel(xIndex, yIndex, color);
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#renderImageAsync(Duration)}.
+     */
+    @Test
+    void testRenderImageAsync() throws Exception {
+        // the threads of the workers, joined for knowing no more pixels are written
+        List<Thread> threads = new ArrayList<>();
+        Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setNumOfRays(16).setMultithreading(2)
+                .setExecutor(worker -> {
+                    Thread thread = new Thread(worker);
+                    synchronized (threads) {
+                        threads.add(thread);
+                    }
+                    thread.start();
+                });
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: without a time budget every pixel is rendered once in full quality
+        GatedImageWriter writer = new GatedImageWriter(10, 10, Integer.MAX_VALUE);
+        Camera camera = builder.setImageWriter(writer).build();
+        assertSame(camera, camera.renderImageAsync(null).get(10, TimeUnit.SECONDS), "Bad rendering result");
+        assertEquals(100, writer.writes.get(), "Bad amount of rendered pixels");
+
+        // TC02: when the time is up the rendering completes with a partial refinement - the workers are
+        // held at the 10th pixel until the time is up, and each finishes only the pixel it holds
+        writer = new GatedImageWriter(20, 20, 10);
+        camera = builder.setImageWriter(writer).build();
+        Duration budget = Duration.ofMillis(20);
+        CompletableFuture<Camera> rendering = camera.renderImageAsync(budget);
+        long deadline = System.nanoTime() + budget.toNanos();
+        assertTrue(writer.reached.await(10, TimeUnit.SECONDS), "Rendering did not start");
+        while (System.nanoTime() - deadline <= 0)
+            TimeUnit.NANOSECONDS.sleep(deadline - System.nanoTime() + 1);
+        writer.gate.countDown();
+        assertSame(camera, rendering.get(10, TimeUnit.SECONDS), "Bad rendering result");
+        joinAll(threads);
+        int written = writer.writes.get();
+        assertTrue(written >= 10 && written <= 11, "Bad amount of rendered pixels");
+
+        // TC03: a cancelled rendering stops rendering pixels - the workers are held at the 10th pixel
+        // until the rendering is cancelled, and each finishes only the pixel it holds
+        writer = new GatedImageWriter(20, 20, 10);
+        rendering = builder.setImageWriter(writer).build().renderImageAsync(null);
+        assertTrue(writer.reached.await(10, TimeUnit.SECONDS), "Rendering did not start");
+        assertTrue(rendering.cancel(true), "Rendering was not cancelled");
+        writer.gate.countDown();
+        assertThrows(CancellationException.class, rendering::join, "Cancelled rendering completed");
+        joinAll(threads);
+        written = writer.writes.get();
+        assertTrue(written >= 10 && written <= 11, "Cancelled rendering goes on");
+    }
+
+    /**
+     * Waits for all the given threads to finish, including threads added by the threads being joined
+     * @param threads the threads
+     * @throws InterruptedException if the test was interrupted
+     */
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (int i = 0; ; ++i) {
+            Thread thread;
+            synchronized (threads) {
+                if (i == threads.size())
+                    return;
+                thread = threads.get(i);
+            }
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(thread.isAlive(), "Worker did not finish");
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera.Builder#setMultithreading(int)}.
+     */
+    @Test
+    void testSetMultithreading() {
+        Scene scene = new Scene("Virtual threads test").setBackground(new Color(100, 50, 25));
+        Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setRayTracer(new SimpleRayTracer(scene));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: several small renders on virtual threads at the same time render all their pixels
+        List<ImageWriter> writers = new ArrayList<>();
+        List<CompletableFuture<Camera>> renders = new ArrayList<>();
+        for (int i = 0; i < 16; ++i) {
+            ImageWriter writer = new ImageWriter("virtual threads test", 10, 10);
+            writers.add(writer);
+            renders.add(builder.setImageWriter(writer).setMultithreading(-3).build().renderImageAsync(null));
+        }
+        CompletableFuture.allOf(renders.toArray(CompletableFuture[]::new)).join();
+        for (ImageWriter writer : writers)
+            for (int y = 0; y < 10; ++y)
+                for (int x = 0; x < 10; ++x) {
+                    assertEquals(1, writer.getFrameBuffer().getSamples(x, y), "Pixel not rendered on a virtual thread");
+                    assertEquals(100, writer.getFrameBuffer().getRed(x, y), 0.0001, "Bad pixel rendered on a virtual thread");
+                }
+
+        // =============== Boundary Values Tests ==================
+        // TC11: unknown multithreading mode
+        assertThrows(IllegalArgumentException.class, () -> cameraBuilder.setMultithreading(-4),
+                "Unknown multithreading mode accepted");
+
+        // TC12: switching the same builder from virtual threads back to threads renders on platform threads
+        Set<Boolean> virtual = ConcurrentHashMap.newKeySet();
+        ImageWriter threadWriter = new ImageWriter("virtual threads test", 10, 10) {
+            @Override
+            public void writePixel(int xIndex, int yIndex, Color color) {
+                virtual.add(Thread.currentThread().isVirtual());
+                super.writePixel(xIndex, yIndex, color);
+            }
+        };
+        builder.setImageWriter(threadWriter).setMultithreading(-3).build().renderImage();
+        assertEquals(Set.of(true), virtual, "Workers not run on virtual threads");
+        virtual.clear();
+        builder.setMultithreading(2).build().renderImage();
+        assertEquals(Set.of(false), virtual, "Workers still run on virtual threads after switching to threads");
+
+        // TC13: switching back from virtual threads runs the workers by the executor of the builder again
+        AtomicInteger executed = new AtomicInteger();
+        builder.setExecutor(worker -> {
+            executed.incrementAndGet();
+            new Thread(worker).start();
+        }).setMultithreading(-3).setMultithreading(-2).build().renderImage();
+        assertTrue(executed.get() > 0, "Workers not run by the executor after switching from virtual threads");
+    }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera.Builder#setProgressive(boolean)}.
+     */
+    @Test
+    void testSetProgressive() {
+        Scene scene = new Scene("Progressive test").setBackground(new Color(100, 50, 25));
+        List<Integer> samples = new ArrayList<>();
+        ImageWriter imageWriter = new ImageWriter("progressive test", 4, 4);
+        Camera.Builder builder = cameraBuilder.setVpSize(8, 8).setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(imageWriter)
+                .addRenderListener((writer, amount) -> samples.add(amount));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a progressive rendering adds passes of samples until the amount of rays is reached
+        builder.setNumOfRays(10).setProgressive(true).setMultithreading(2).build().renderImage();
+        assertEquals(List.of(1, 5, 9, 10), samples, "Bad progressive passes");
+        FrameBuffer frameBuffer = imageWriter.getFrameBuffer();
+        for (int y = 0; y < 4; ++y)
+            for (int x = 0; x < 4; ++x) {
+                assertEquals(10, frameBuffer.getSamples(x, y), "Bad amount of accumulated samples");
+                assertEquals(100, frameBuffer.getRed(x, y), 0.0001, "Bad accumulated color");
+                assertEquals(25, frameBuffer.getBlue(x, y), 0.0001, "Bad accumulated color");
+            }
+
+        // TC02: a regular rendering calls the listeners once
+        samples.clear();
+        builder.setProgressive(false).build().renderImage();
+        assertEquals(List.of(10), samples, "Bad regular rendering pass");
+    }
+
 }
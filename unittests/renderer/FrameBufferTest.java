@@ -0,0 +1,80 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import primitives.Color;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing FrameBuffer Class
+ * @author Zili
+ */
+class FrameBufferTest {
+    /** Delta for the float comparisons */
+    private static final double DELTA = 0.0001;
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#set(int, int, Color)}.
+     */
+    @Test
+    void testSet() {
+        FrameBuffer frameBuffer = new FrameBuffer(3, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: a set pixel holds a single sample of the color, in full precision
+        frameBuffer.add(2, 1, new Color(10, 10, 10), 5);
+        frameBuffer.set(2, 1, new Color(300.5, 20.25, 0));
+        assertEquals(1, frameBuffer.getSamples(2, 1), "Bad amount of samples");
+        assertEquals(300.5, frameBuffer.getRed(2, 1), DELTA, "Bad red component");
+        assertEquals(20.25, frameBuffer.getGreen(2, 1), DELTA, "Bad green component");
+        assertEquals(0, frameBuffer.getBlue(2, 1), DELTA, "Bad blue component");
+        // the color is clamped and quantized only for the image
+        assertEquals(255 << 16 | 20 << 8, frameBuffer.getRGB(2, 1), "Bad quantized color");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a pixel which was not rendered is black
+        assertEquals(0, frameBuffer.getSamples(0, 0), "Bad amount of samples");
+        assertEquals(0, frameBuffer.getRGB(0, 0), "Bad color of a pixel which was not rendered");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#add(int, int, Color, int)}.
+     */
+    @Test
+    void testAdd() {
+        FrameBuffer frameBuffer = new FrameBuffer(2, 2);
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the color of a pixel is the average of all its samples
+        frameBuffer.add(1, 0, new Color(100, 0, 40), 1);
+        frameBuffer.add(1, 0, new Color(20, 60, 40), 3);
+        assertEquals(4, frameBuffer.getSamples(1, 0), "Bad amount of samples");
+        assertEquals(40, frameBuffer.getRed(1, 0), DELTA, "Bad red component");
+        assertEquals(45, frameBuffer.getGreen(1, 0), DELTA, "Bad green component");
+        assertEquals(40, frameBuffer.getBlue(1, 0), DELTA, "Bad blue component");
+    }
+
+    /**
+     * Test method for {@link renderer.FrameBuffer#merge(FrameBuffer)}.
+     */
+    @Test
+    void testMerge() {
+        FrameBuffer left = new FrameBuffer(2, 1);
+        FrameBuffer right = new FrameBuffer(2, 1);
+        left.add(0, 0, new Color(30, 30, 30), 2);
+        right.add(0, 0, new Color(60, 60, 60), 1);
+        right.set(1, 0, new Color(5, 6, 7));
+
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: merged buffers hold the samples of both
+        left.merge(right);
+        assertEquals(3, left.getSamples(0, 0), "Bad amount of merged samples");
+        assertEquals(40, left.getRed(0, 0), DELTA, "Bad merged color");
+        assertEquals(1, left.getSamples(1, 0), "Bad amount of samples of a partial buffer");
+        assertEquals(7, left.getBlue(1, 0), DELTA, "Bad color of a partial buffer");
+
+        // TC02: buffers of different resolutions cannot be merged
+        assertThrows(IllegalArgumentException.class, () -> left.merge(new FrameBuffer(1, 2)),
+                "Merged buffers of different resolutions");
+    }
+}
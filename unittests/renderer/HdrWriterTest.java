@@ -0,0 +1,126 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing HdrWriter Class
+ * @author Zili
+ */
+class HdrWriterTest {
+    /**
+     * Creates a frame buffer with a gradient, runs of equal pixels and colors brighter than white
+     * @param nX amount of pixels by width
+     * @param nY amount of pixels by height
+     * @return the frame buffer
+     */
+    private static FrameBuffer frameBuffer(int nX, int nY) {
+        FrameBuffer frameBuffer = new FrameBuffer(nX, nY);
+        for (int y = 0; y < nY; ++y)
+            for (int x = 0; x < nX; ++x)
+                frameBuffer.set(x, y, x < nX / 2 ? new Color(510, 25.5, 0) : new Color(x * 10, y * 100, x * y));
+        return frameBuffer;
+    }
+
+    /**
+     * Test method for {@link renderer.HdrWriter#writePfm(FrameBuffer, Path)}.
+     */
+    @Test
+    void testWritePfm(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the header and the linear colors from the bottom row up
+        FrameBuffer frameBuffer = frameBuffer(5, 3);
+        Path path = folder.resolve("test.pfm");
+        HdrWriter.writePfm(frameBuffer, path);
+        byte[] bytes = Files.readAllBytes(path);
+        String header = "PF\n5 3\n-1.0\n";
+        assertEquals(header, new String(bytes, 0, header.length(), StandardCharsets.US_ASCII), "Bad header");
+        assertEquals(header.length() + 5 * 3 * 12, bytes.length, "Bad file length");
+        ByteBuffer data = ByteBuffer.wrap(bytes, header.length(), bytes.length - header.length())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (int y = 2; y >= 0; --y)
+            for (int x = 0; x < 5; ++x) {
+                assertEquals(frameBuffer.getRed(x, y) / 255, data.getFloat(), 1e-6, "Bad red component");
+                assertEquals(frameBuffer.getGreen(x, y) / 255, data.getFloat(), 1e-6, "Bad green component");
+                assertEquals(frameBuffer.getBlue(x, y) / 255, data.getFloat(), 1e-6, "Bad blue component");
+            }
+    }
+
+    /**
+     * Test method for {@link renderer.HdrWriter#writeRadiance(FrameBuffer, Path)}.
+     */
+    @Test
+    void testWriteRadiance(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: run length encoded rows
+        checkRadiance(folder, frameBuffer(300, 4));
+
+        // =============== Boundary Values Tests ==================
+        // TC11: an image too narrow for encoding is written flat
+        checkRadiance(folder, frameBuffer(4, 3));
+        // TC12: the narrowest encoded image
+        checkRadiance(folder, frameBuffer(8, 2));
+    }
+
+    /**
+     * Writes a frame buffer into a Radiance file, and checks that the decoded file has the colors of the
+     * frame buffer (within the precision of the shared exponent format)
+     * @param folder      the directory of the file
+     * @param frameBuffer the frame buffer
+     */
+    private static void checkRadiance(Path folder, FrameBuffer frameBuffer) throws IOException {
+        int nX = frameBuffer.getNx(), nY = frameBuffer.getNy();
+        Path path = folder.resolve("test.hdr");
+        HdrWriter.writeRadiance(frameBuffer, path);
+        ByteBuffer file = ByteBuffer.wrap(Files.readAllBytes(path));
+
+        String header = "#?RADIANCE\nFORMAT=32-bit_rle_rgbe\n\n-Y " + nY + " +X " + nX + "\n";
+        byte[] headerBytes = new byte[header.length()];
+        file.get(headerBytes);
+        assertEquals(header, new String(headerBytes, StandardCharsets.US_ASCII), "Bad header");
+
+        byte[][] rgbe = new byte[4][nX];
+        for (int y = 0; y < nY; ++y) {
+            if (nX >= 8) {
+                assertEquals(2, file.get(), "Bad row header");
+                assertEquals(2, file.get(), "Bad row header");
+                assertEquals(nX, (file.get() & 0xff) << 8 | file.get() & 0xff, "Bad row width");
+                for (byte[] component : rgbe)
+                    for (int x = 0; x < nX; ) {
+                        int count = file.get() & 0xff;
+                        if (count > 128) {
+                            byte value = file.get();
+                            for (int i = 0; i < count - 128; ++i)
+                                component[x++] = value;
+                        } else {
+                            file.get(component, x, count);
+                            x += count;
+                        }
+                    }
+            } else
+                for (int x = 0; x < nX; ++x)
+                    for (byte[] component : rgbe)
+                        component[x] = file.get();
+
+            for (int x = 0; x < nX; ++x) {
+                int exponent = rgbe[3][x] & 0xff;
+                double scale = exponent == 0 ? 0 : Math.scalb(1d, exponent - 136);
+                double tolerance = scale + 1e-9;
+                assertEquals(frameBuffer.getRed(x, y) / 255, (rgbe[0][x] & 0xff) * scale, tolerance, "Bad red");
+                assertEquals(frameBuffer.getGreen(x, y) / 255, (rgbe[1][x] & 0xff) * scale, tolerance, "Bad green");
+                assertEquals(frameBuffer.getBlue(x, y) / 255, (rgbe[2][x] & 0xff) * scale, tolerance, "Bad blue");
+            }
+        }
+        assertFalse(file.hasRemaining(), "Bad file length");
+    }
+}
@@ -0,0 +1,86 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing MappedFrameBuffer Class
+ * @author Zili
+ */
+class MappedFrameBufferTest {
+
+    /**
+     * Test method for {@link renderer.MappedFrameBuffer#MappedFrameBuffer(int, int, Path)}.
+     */
+    @Test
+    void testMappedFrameBuffer(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the raster file holds four floats of every pixel, and the pixels are kept like on the heap
+        Path path = folder.resolve("raster.raw");
+        // bands of two rows (of 7 pixels of 16 bytes) - the last band has a single row
+        MappedFrameBuffer mapped = new MappedFrameBuffer(7, 5, path, 7 * 16 * 2 + 20);
+        FrameBuffer heap = new FrameBuffer(7, 5);
+        assertEquals(7 * 5 * 16, Files.size(path), "Bad raster file size");
+        for (int y = 0; y < 5; ++y)
+            for (int x = 0; x < 7; ++x) {
+                Color color = new Color(x * 40, y * 60, x * y);
+                mapped.set(x, y, color);
+                mapped.add(x, y, color.scale(2), 3);
+                heap.set(x, y, color);
+                heap.add(x, y, color.scale(2), 3);
+            }
+        for (int y = 0; y < 5; ++y)
+            for (int x = 0; x < 7; ++x) {
+                assertEquals(4, mapped.getSamples(x, y), "Bad amount of samples");
+                assertEquals(heap.getRed(x, y), mapped.getRed(x, y), "Bad red component");
+                assertEquals(heap.getBlue(x, y), mapped.getBlue(x, y), "Bad blue component");
+                assertEquals(heap.getRGB(x, y), mapped.getRGB(x, y), "Bad quantized color");
+            }
+
+        // TC02: cleared buffer is black
+        mapped.clear();
+        assertEquals(0, mapped.getSamples(6, 4), "Bad amount of samples of a cleared pixel");
+        assertEquals(0, mapped.getRGB(6, 4), "Bad color of a cleared pixel");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a row too long for a band
+        assertThrows(IllegalArgumentException.class,
+                () -> new MappedFrameBuffer(7, 5, folder.resolve("long.raw"), 100), "Mapped a row longer than a band");
+        mapped.close();
+    }
+
+    /**
+     * Test method for {@link renderer.MappedFrameBuffer#close()}.
+     */
+    @Test
+    void testClose(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the pixels written before closing stay in the file, and a closed buffer cannot be used
+        Path path = folder.resolve("raster.raw");
+        MappedFrameBuffer mapped;
+        try (MappedFrameBuffer buffer = new MappedFrameBuffer(2, 2, path)) {
+            buffer.set(1, 1, new Color(1, 2, 3));
+            buffer.force();
+            mapped = buffer;
+        }
+        assertThrows(IllegalStateException.class, () -> mapped.getRed(1, 1), "Read a closed buffer");
+        assertThrows(IllegalStateException.class, () -> mapped.set(0, 0, Color.BLACK), "Wrote a closed buffer");
+        assertThrows(IllegalStateException.class, mapped::clear, "Cleared a closed buffer");
+        assertThrows(IllegalStateException.class, mapped::force, "Forced a closed buffer");
+        ByteBuffer raster = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.nativeOrder());
+        assertEquals(3, raster.getFloat(3 * 16 + 2 * Float.BYTES), "Pixel not kept in the file");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: closing a closed buffer has no effect
+        assertDoesNotThrow(mapped::close, "Closing a closed buffer failed");
+    }
+}
@@ -0,0 +1,47 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import primitives.Color;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing PngWriter Class
+ * @author Zili
+ */
+class PngWriterTest {
+
+    /**
+     * Test method for {@link renderer.PngWriter#write(FrameBuffer, Path)}.
+     */
+    @Test
+    void testWrite(@TempDir Path folder) throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        // TC01: the file holds the clamped and quantized colors (a large image, written in several chunks)
+        FrameBuffer frameBuffer = new FrameBuffer(600, 500);
+        for (int y = 0; y < 500; ++y)
+            for (int x = 0; x < 600; ++x)
+                frameBuffer.set(x, y, new Color((x * 7919 + y * 104729) % 400, (x ^ y) & 255, x < 300 ? 30 : y * 0.6));
+        Path path = folder.resolve("test.png");
+        PngWriter.write(frameBuffer, path);
+        BufferedImage image = ImageIO.read(path.toFile());
+        assertEquals(600, image.getWidth(), "Bad image width");
+        assertEquals(500, image.getHeight(), "Bad image height");
+        for (int y = 0; y < 500; ++y)
+            for (int x = 0; x < 600; ++x)
+                assertEquals(frameBuffer.getRGB(x, y), image.getRGB(x, y) & 0xffffff, "Bad pixel color");
+
+        // =============== Boundary Values Tests ==================
+        // TC11: a single pixel image
+        frameBuffer = new FrameBuffer(1, 1);
+        frameBuffer.set(0, 0, new Color(1000, 128, 0));
+        PngWriter.write(frameBuffer, path);
+        assertEquals(255 << 16 | 128 << 8, ImageIO.read(path.toFile()).getRGB(0, 0) & 0xffffff, "Bad pixel color");
+    }
+}